@@ -0,0 +1,333 @@
+package thesallab.configuration;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动访问记录与预取。
+ * <p>
+ * 在启动窗口内记录请求线程读取的需解码配置项（键与读取方法），
+ * 进程退出时写入由{@value #CONFIG_PROFILE}指定的记录文件。
+ * 下次启动时读取该文件，在后台线程中预先解码这些配置项，
+ * 使请求线程的首次读取直接命中已解码缓存。
+ * <p>
+ * 已解码缓存属于各个配置信息实例。线程本地工作模式下每个线程有各自的实例，
+ * 预取线程解码的值不会被请求线程读取，因此该模式下只记录访问，不预取。
+ *
+ * @author Zhang, Yin
+ */
+public class AccessProfile {
+
+    // **************** 公开变量
+
+    /**
+     * 访问记录文件路径。
+     */
+    public static final String CONFIG_PROFILE = "cx.config.profile";
+
+    /**
+     * 启动窗口长度（毫秒）。
+     */
+    public static final String CONFIG_PROFILE_WINDOW =
+        "cx.config.profile.window";
+
+    /**
+     * 默认启动窗口长度（毫秒）。
+     */
+    public static final long DEFAULT_PROFILE_WINDOW = 60000;
+
+    // **************** 私有变量
+
+    /**
+     * Log4j logger。
+     */
+    private static Logger logger = LogManager.getLogger(AccessProfile.class);
+
+    /**
+     * 记录文件中键与值类型的分隔符。
+     */
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * 启动窗口结束时间。
+     */
+    private static final long windowEnd =
+        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong(CONFIG_PROFILE_WINDOW, DEFAULT_PROFILE_WINDOW));
+
+    /**
+     * 启动窗口内读取过的配置项，按值类型分组。
+     */
+    private static final Map<ValueType, Set<String>> accessed =
+        new EnumMap<>(ValueType.class);
+
+    static {
+        for (ValueType type : ValueType.values()) {
+            accessed.put(type, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * 是否正在记录访问。指定了记录文件时由{@link #start()}开启，
+     * 启动窗口结束后关闭，此后读取配置项不再有记录开销。
+     */
+    private static volatile boolean recording = false;
+
+    /**
+     * 命中预取结果、因而免于解码的首次读取次数。
+     */
+    private static final AtomicLong avoidedDecodes = new AtomicLong();
+
+    /**
+     * 请求线程执行的解码次数。
+     */
+    private static final AtomicLong requestDecodes = new AtomicLong();
+
+    /**
+     * 预取线程执行的解码次数。
+     */
+    private static final AtomicLong prefetchedDecodes = new AtomicLong();
+
+    /**
+     * 预取完成信号。
+     */
+    private static final CountDownLatch prefetchDone = new CountDownLatch(1);
+
+    /**
+     * 是否已启动。
+     */
+    private static boolean started = false;
+
+    /**
+     * 启动锁。
+     */
+    private static final Object startLock = new Object();
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 启动访问记录与预取。未指定记录文件时不做任何事情，
+     * 线程本地工作模式下只记录访问。
+     * 重复调用无副作用。应在应用启动时尽早调用，Config类初始化时也会自动调用。
+     */
+    public static void start() {
+        String file = System.getProperty(CONFIG_PROFILE);
+        if (file == null || "".equals(file)) {
+            prefetchDone.countDown();
+            return;
+        }
+
+        synchronized (startLock) {
+            if (started) {
+                return;
+            }
+            started = true;
+        }
+
+        recording = true;
+        Path path = Paths.get(file);
+        Runtime.getRuntime()
+            .addShutdownHook(new Thread(() -> save(path), "config-profile"));
+
+        if (!Files.isRegularFile(path) ||
+            Config.CONFIG_WORKING_MODE_THREADLOCAL
+                .equals(Config.configWorkingMode)) {
+            prefetchDone.countDown();
+            return;
+        }
+
+        Thread thread = new Thread(() -> prefetch(path), "config-prefetch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 将启动窗口内的访问记录写入记录文件。
+     */
+    public static void save() {
+        String file = System.getProperty(CONFIG_PROFILE);
+        if (file == null || "".equals(file)) {
+            throw new ArgumentError(AccessProfile.class, "save",
+                CONFIG_PROFILE, "Specify profile file via -D" +
+                CONFIG_PROFILE);
+        }
+
+        save(Paths.get(file));
+    }
+
+    /**
+     * 等待预取完成。尚未启动时先启动访问记录与预取。
+     *
+     * @param timeout 超时时间（毫秒）。
+     * @return 预取是否已完成。
+     * @throws InterruptedException 等待被中断。
+     */
+    public static boolean awaitPrefetch(long timeout)
+        throws InterruptedException {
+        start();
+        return prefetchDone.await(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获得命中预取结果、因而免于解码的首次读取次数。
+     *
+     * @return 免于解码的首次读取次数。
+     */
+    public static long getAvoidedDecodes() {
+        return avoidedDecodes.get();
+    }
+
+    /**
+     * 获得请求线程执行的解码次数。
+     *
+     * @return 请求线程执行的解码次数。
+     */
+    public static long getRequestDecodes() {
+        return requestDecodes.get();
+    }
+
+    /**
+     * 获得预取线程执行的解码次数。
+     *
+     * @return 预取线程执行的解码次数。
+     */
+    public static long getPrefetchedDecodes() {
+        return prefetchedDecodes.get();
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 私有的构造函数。
+     */
+    private AccessProfile() {
+    }
+
+    /**
+     * 记录一次缓存命中。
+     *
+     * @param type  值类型。
+     * @param key   配置项键。
+     * @param entry 命中的缓存项。
+     */
+    static void hit(ValueType type, String key,
+                    DecodedValueCache.Entry entry) {
+        if (entry.untouchedPrefetch.get() &&
+            entry.untouchedPrefetch.compareAndSet(true, false)) {
+            avoidedDecodes.incrementAndGet();
+        }
+        record(type, key);
+    }
+
+    /**
+     * 记录一次解码。
+     *
+     * @param type     值类型。
+     * @param key      配置项键。
+     * @param prefetch 是否由预取线程解码。
+     */
+    static void miss(ValueType type, String key, boolean prefetch) {
+        if (prefetch) {
+            prefetchedDecodes.incrementAndGet();
+        } else {
+            requestDecodes.incrementAndGet();
+            record(type, key);
+        }
+    }
+
+    /**
+     * 在启动窗口内记录一次访问。
+     *
+     * @param type 值类型。
+     * @param key  配置项键。
+     */
+    private static void record(ValueType type, String key) {
+        if (!recording) {
+            return;
+        }
+
+        Set<String> keys = accessed.get(type);
+        if (keys.contains(key)) {
+            return;
+        }
+        if (System.nanoTime() - windowEnd >= 0) {
+            recording = false;
+            return;
+        }
+        keys.add(key);
+    }
+
+    /**
+     * 将访问记录写入记录文件。
+     *
+     * @param path 记录文件路径。
+     */
+    private static void save(Path path) {
+        List<String> lines = new ArrayList<>();
+        accessed.forEach((type, keys) -> keys
+            .forEach(p -> lines.add(type.name() + SEPARATOR + p)));
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        lines.sort(null);
+        try {
+            Files.write(path, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取记录文件并预先解码其中的配置项。
+     *
+     * @param path 记录文件路径。
+     */
+    private static void prefetch(Path path) {
+        try {
+            for (String line : Files.readAllLines(path,
+                StandardCharsets.UTF_8)) {
+                int separator = line.indexOf(SEPARATOR);
+                if (separator < 0) {
+                    continue;
+                }
+
+                ValueType type;
+                try {
+                    type = ValueType.valueOf(line.substring(0, separator));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                String key = line.substring(separator + 1);
+
+                try {
+                    Config.instance().prefetch(type, key);
+                } catch (RuntimeException e) {
+                    logger.debug(e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        } finally {
+            prefetchDone.countDown();
+        }
+    }
+
+}
@@ -1,23 +1,12 @@
 package thesallab.configuration;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.DoubleNode;
-import com.fasterxml.jackson.databind.node.IntNode;
 import org.apache.commons.configuration.CompositeConfiguration;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.File;
 import java.sql.Timestamp;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Date;
-import java.util.stream.StreamSupport;
+import java.util.Map;
 
 /**
  * 配置信息。
@@ -64,21 +53,24 @@ public class Config {
     private static Logger logger = LogManager.getLogger(Config.class);
 
     /**
-     * 全局唯一的配置信息对象。
+     * 全局唯一的配置信息实例。
      */
-    private static CompositeConfiguration _configuration = null;
+    private static volatile ConfigInstance _instance = null;
 
     /**
-     * 全局唯一的配置信息对象锁。
+     * 全局唯一的配置信息实例锁。
      */
-    private static final Object _configurationLock = new Object();
+    private static final Object _instanceLock = new Object();
 
     /**
-     * 本地线程配置信息对象。
+     * 本地线程配置信息实例。
      */
-    private static final ThreadLocal<CompositeConfiguration>
-        threadLocalConfiguration =
-        ThreadLocal.withInitial(() -> newConfiguration());
+    private static final ThreadLocal<ConfigInstance> threadLocalInstance =
+        ThreadLocal.withInitial(() -> ConfigInstance.load(configFile()));
+
+    static {
+        AccessProfile.start();
+    }
 
     // **************** 继承方法
 
@@ -92,20 +84,7 @@ public class Config {
      * @defaultValue 默认值。
      */
     public static boolean getBoolean(String key, boolean defaultValue) {
-        String booleanString;
-
-        if ((booleanString = Config.get(key)) == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Boolean.parseBoolean(booleanString);
-        } catch (Exception e) {
-            ConfigItemException cie =
-                new ConfigItemException(key, "should " + "be a boolean.", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getBoolean(key, defaultValue);
     }
 
     /**
@@ -115,16 +94,7 @@ public class Config {
      * @return 布尔型配置项值。
      */
     public static boolean getBoolean(String key) {
-        String booleanString = getNotNull(key);
-
-        try {
-            return Boolean.parseBoolean(booleanString);
-        } catch (Exception e) {
-            ConfigItemException cie =
-                new ConfigItemException(key, "should " + "be a boolean.", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getBoolean(key);
     }
 
     /**
@@ -134,13 +104,7 @@ public class Config {
      * @return 文件夹路径。
      */
     public static String getFolderForRead(String key) {
-        String value = getFolder(key);
-
-        if (!new File(value).exists()) {
-            throw new ConfigItemException(key, "Folder does not exist.");
-        }
-
-        return value;
+        return instance().getFolderForRead(key);
     }
 
     /**
@@ -150,14 +114,7 @@ public class Config {
      * @return 文件夹路径。
      */
     public static String getFolderForWrite(String key) {
-        String value = getFolder(key);
-
-        File folder = new File(value);
-        if (!folder.exists()) {
-            folder.mkdirs();
-        }
-
-        return value;
+        return instance().getFolderForWrite(key);
     }
 
     /**
@@ -167,13 +124,7 @@ public class Config {
      * @return 文件夹路径。
      */
     public static String getFolder(String key) {
-        String value = getNotNull(key);
-
-        if (!value.endsWith("/")) {
-            throw new ConfigItemException(key, "Folder should end with \"/\"");
-        }
-
-        return value;
+        return instance().getFolder(key);
     }
 
     /**
@@ -183,13 +134,7 @@ public class Config {
      * @return 路径。
      */
     public static String getPathForRead(String key) {
-        String value = getNotNull(key);
-
-        if (!new File(value).exists()) {
-            throw new ConfigItemException(key, "Path does not exist.");
-        }
-
-        return value;
+        return instance().getPathForRead(key);
     }
 
     /**
@@ -199,16 +144,7 @@ public class Config {
      * @return 路经数组。
      */
     public static String[] getPathArrayForRead(String key) {
-        String[] values = getStringArray(key);
-
-        if (Arrays.stream(values).anyMatch(p -> !new File(p).exists())) {
-            throw new ConfigItemException(key, "Paths do not exist: " + String
-                .join(", ",
-                    Arrays.stream(values).filter(p -> !new File(p).exists())
-                        .toArray(String[]::new)));
-        }
-
-        return values;
+        return instance().getPathArrayForRead(key);
     }
 
     /**
@@ -218,28 +154,7 @@ public class Config {
      * @return 路经数组。
      */
     public static String[] getPathArrayForWrite(String key) {
-        String[] values = getStringArray(key);
-
-        if (Arrays.stream(values).anyMatch(p -> p.endsWith("/"))) {
-            throw new ConfigItemException(key,
-                "Path should not end with \"/\"");
-        }
-
-        File[] files =
-            Arrays.stream(values).map(p -> new File(p)).toArray(File[]::new);
-        File[] existingFiles =
-            Arrays.stream(files).filter(p -> p.exists()).toArray(File[]::new);
-        if (Arrays.stream(existingFiles).anyMatch(p -> !p.isFile())) {
-            throw new ConfigItemException(key,
-                "Path already exists and is not a file.");
-        }
-        Arrays.stream(existingFiles).filter(p -> p.isFile())
-            .forEach(p -> p.delete());
-
-        Arrays.stream(files).map(p -> p.getParentFile())
-            .filter(p -> !p.exists()).forEach(p -> p.mkdirs());
-
-        return values;
+        return instance().getPathArrayForWrite(key);
     }
 
     /**
@@ -249,29 +164,7 @@ public class Config {
      * @return 路径。
      */
     public static String getPathForWrite(String key) {
-        String value = getNotNull(key);
-
-        if (key.endsWith("/")) {
-            throw new ConfigItemException(key,
-                "Path should not end with \"/\"");
-        }
-
-        File file = new File(value);
-        if (file.exists()) {
-            if (file.isFile()) {
-                file.delete();
-            } else {
-                throw new ConfigItemException(key,
-                    "Path already exists and is not a file.");
-            }
-        }
-
-        File folder = file.getParentFile();
-        if (!folder.exists()) {
-            folder.mkdirs();
-        }
-
-        return value;
+        return instance().getPathForWrite(key);
     }
 
 
@@ -283,20 +176,7 @@ public class Config {
      * @return 长整数配置项值。
      */
     public static long getLong(String key, long defaultValue) {
-        String longString;
-
-        if ((longString = Config.get(key)) == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Long.parseLong(longString);
-        } catch (Exception e) {
-            ConfigItemException cie =
-                new ConfigItemException(key, "should " + "be a long.", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getLong(key, defaultValue);
     }
 
 
@@ -307,16 +187,7 @@ public class Config {
      * @return 长整数配置项值。
      */
     public static long getLong(String key) {
-        String longString = getNotNull(key);
-
-        try {
-            return Long.parseLong(longString);
-        } catch (Exception e) {
-            ConfigItemException cie =
-                new ConfigItemException(key, "should " + "be a long.", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getLong(key);
     }
 
     /**
@@ -327,20 +198,7 @@ public class Config {
      * @return 浮点数配置项值。
      */
     public static double getDouble(String key, double defaultValue) {
-        String doubleString = null;
-
-        if ((doubleString = Config.get(key)) == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Double.parseDouble(doubleString);
-        } catch (Exception e) {
-            ConfigItemException cie =
-                new ConfigItemException(key, "should " + "be a double.", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getDouble(key, defaultValue);
     }
 
     /**
@@ -350,16 +208,7 @@ public class Config {
      * @return 浮点数配置项值。
      */
     public static double getDouble(String key) {
-        String doubleString = getNotNull(key);
-
-        try {
-            return Double.parseDouble(doubleString);
-        } catch (Exception e) {
-            ConfigItemException cie =
-                new ConfigItemException(key, "should " + "be a double.", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getDouble(key);
     }
 
     /**
@@ -369,21 +218,7 @@ public class Config {
      * @return 浮点数组。
      */
     public static double[] getDoubleArray(String key) {
-        String doubleArrayString = getNotNull(key);
-
-        ArrayNode array;
-        try {
-            array = (ArrayNode) new ObjectMapper().readTree(doubleArrayString);
-        } catch (Exception e) {
-            ConfigItemException cie = new ConfigItemException(key,
-                "should be" + " a json array of double.", e);
-            logger.error(cie);
-            throw cie;
-        }
-
-        return StreamSupport.stream(array.spliterator(), false)
-            .map(DoubleNode.class::cast).mapToDouble(DoubleNode::asDouble)
-            .toArray();
+        return instance().getDoubleArray(key);
     }
 
     /**
@@ -393,26 +228,7 @@ public class Config {
      * @return 二维浮点数组。
      */
     public static double[][] getDoubleArrays(String key) {
-        String doubleArraysString = getNotNull(key);
-
-        ArrayNode arrays;
-        try {
-            arrays =
-                (ArrayNode) new ObjectMapper().readTree(doubleArraysString);
-        } catch (Exception e) {
-            ConfigItemException cie = new ConfigItemException(key,
-                "should be" + " a json array of double array.", e);
-            logger.error(cie);
-            throw cie;
-        }
-
-        return StreamSupport.stream(arrays.spliterator(), false)
-            .map(ArrayNode.class::cast).map(
-                p -> StreamSupport.stream(p.spliterator(), false)
-                    .map(DoubleNode.class::cast)
-                    .mapToDouble(DoubleNode::asDouble).toArray())
-            .collect(ArrayList<double[]>::new, ArrayList::add,
-                ArrayList::addAll).toArray(new double[0][]);
+        return instance().getDoubleArrays(key);
     }
 
     /**
@@ -423,20 +239,7 @@ public class Config {
      * @return 整数配置项值。
      */
     public static int getInt(String key, int defaultValue) {
-        String intString = null;
-
-        if ((intString = Config.get(key)) == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Integer.parseInt(intString);
-        } catch (Exception e) {
-            ConfigItemException cie =
-                new ConfigItemException(key, "should " + "be a int.", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getInt(key, defaultValue);
     }
 
     /**
@@ -446,16 +249,7 @@ public class Config {
      * @return 整数配置项值。
      */
     public static int getInt(String key) {
-        String intString = getNotNull(key);
-
-        try {
-            return Integer.parseInt(intString);
-        } catch (Exception e) {
-            ConfigItemException cie =
-                new ConfigItemException(key, "should " + "be a int.", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getInt(key);
     }
 
     /**
@@ -465,20 +259,7 @@ public class Config {
      * @return 整数数组。
      */
     public static int[] getIntArray(String key) {
-        String intArrayString = getNotNull(key);
-
-        ArrayNode array;
-        try {
-            array = (ArrayNode) new ObjectMapper().readTree(intArrayString);
-        } catch (Exception e) {
-            ConfigItemException cie = new ConfigItemException(key,
-                "should be" + " a json array of int.", e);
-            logger.error(cie);
-            throw cie;
-        }
-
-        return StreamSupport.stream(array.spliterator(), false)
-            .map(IntNode.class::cast).mapToInt(IntNode::asInt).toArray();
+        return instance().getIntArray(key);
     }
 
     /**
@@ -488,25 +269,7 @@ public class Config {
      * @return 二维整数数组。
      */
     public static int[][] getIntArrays(String key) {
-        String intArraysString = getNotNull(key);
-
-        ArrayNode arrays;
-        try {
-            arrays = (ArrayNode) new ObjectMapper().readTree(intArraysString);
-        } catch (Exception e) {
-            ConfigItemException cie = new ConfigItemException(key,
-                "should be" + " a json array of int array.", e);
-            logger.error(cie);
-            throw cie;
-        }
-
-        return StreamSupport.stream(arrays.spliterator(), false)
-            .map(ArrayNode.class::cast).map(
-                p -> StreamSupport.stream(p.spliterator(), false)
-                    .map(IntNode.class::cast).mapToInt(IntNode::asInt)
-                    .toArray())
-            .collect(ArrayList<int[]>::new, ArrayList::add, ArrayList::addAll)
-            .toArray(new int[0][]);
+        return instance().getIntArrays(key);
     }
 
     /**
@@ -516,25 +279,7 @@ public class Config {
      * @return 二维字符串数组。
      */
     public static String[][] getStringArrays(String key) {
-        String stringArraysString = getNotNull(key);
-
-        ArrayNode arrays;
-        try {
-            arrays =
-                (ArrayNode) new ObjectMapper().readTree(stringArraysString);
-        } catch (Exception e) {
-            ConfigItemException cie = new ConfigItemException(key,
-                "should be" + " a json array of string array.", e);
-            logger.error(e);
-            throw cie;
-        }
-
-        return StreamSupport.stream(arrays.spliterator(), false)
-            .map(ArrayNode.class::cast).map(
-                p -> StreamSupport.stream(p.spliterator(), false)
-                    .map(JsonNode::asText).toArray(String[]::new))
-            .collect(ArrayList<String[]>::new, ArrayList::add,
-                ArrayList::addAll).toArray(new String[0][]);
+        return instance().getStringArrays(key);
     }
 
     /**
@@ -544,20 +289,7 @@ public class Config {
      * @return 字符串数组。
      */
     public static String[] getStringArray(String key) {
-        String stringArrayString = getNotNull(key);
-
-        ArrayNode array;
-        try {
-            array = (ArrayNode) new ObjectMapper().readTree(stringArrayString);
-        } catch (Exception e) {
-            ConfigItemException cie = new ConfigItemException(key,
-                "should be" + " a json array of string.", e);
-            logger.error(cie);
-            throw cie;
-        }
-
-        return StreamSupport.stream(array.spliterator(), false)
-            .map(JsonNode::asText).toArray(String[]::new);
+        return instance().getStringArray(key);
     }
 
     /**
@@ -567,18 +299,7 @@ public class Config {
      * @return 时间戳。
      */
     public static Timestamp getTimestamp(String key) {
-        String timestampString = getNotNull(key);
-
-        try {
-            SimpleDateFormat format = new SimpleDateFormat("yyyyMMddhhmmss");
-            Date date = format.parse(timestampString);
-            return new Timestamp(date.getTime());
-        } catch (ParseException e) {
-            ConfigItemException cie = new ConfigItemException(key,
-                "should be" + " in format yyyyMMddhhmmss", e);
-            logger.error(cie);
-            throw cie;
-        }
+        return instance().getTimestamp(key);
     }
 
     /**
@@ -588,15 +309,7 @@ public class Config {
      * @return 配置项值。
      */
     public static String getNotNull(String key) {
-        String value = get(key);
-
-        if (value == null) {
-            RuntimeException e = new MissingConfigItemException(key);
-            logger.fatal(e.getMessage(), e);
-            throw e;
-        }
-
-        return value;
+        return instance().getNotNull(key);
     }
 
     /**
@@ -607,8 +320,7 @@ public class Config {
      * @return 配置项值。
      */
     public static String get(String key, String defaultValue) {
-        String value = get(key);
-        return value != null ? value : defaultValue;
+        return instance().get(key, defaultValue);
     }
 
     /**
@@ -618,7 +330,7 @@ public class Config {
      * @return 配置项值。
      */
     public static String get(String key) {
-        return configuration().getString(key);
+        return instance().get(key);
     }
 
     /**
@@ -628,44 +340,70 @@ public class Config {
      * @param value 配置项值。
      */
     public static void set(String key, String value) {
-        configuration().setProperty(key, value);
+        instance().set(key, value);
     }
 
-    // **************** 私有方法
+    /**
+     * 批量设置配置项值，所有配置项一次发布。
+     *
+     * @param entries 配置项，值为null时删除配置项。
+     */
+    public static void setAll(Map<String, String> entries) {
+        instance().setAll(entries);
+    }
 
     /**
-     * 私有的构造函数。
+     * 开始批量修改默认配置信息实例。
+     *
+     * @return 批量修改。
      */
-    private Config() {
+    public static ConfigTransaction transaction() {
+        return instance().transaction();
+    }
+
+    /**
+     * 重新读取配置文件。只有值改变的配置项及引用它们的配置项需要重新替换变量。
+     */
+    public static void reload() {
+        instance().reload();
     }
 
     /**
-     * 获得配置信息对象。
+     * 获得默认配置信息实例。全局工作模式下为全局唯一的实例，
+     * 线程本地工作模式下为当前线程的实例。
      *
-     * @return 配置信息对象。
+     * @return 默认配置信息实例。
      */
-    private static CompositeConfiguration configuration() {
+    public static ConfigInstance instance() {
         switch (configWorkingMode) {
             case CONFIG_WORKING_MODE_THREADLOCAL:
-                return threadLocalConfiguration.get();
+                return threadLocalInstance.get();
             default:
-                if (_configuration == null) {
-                    synchronized (_configurationLock) {
-                        if (_configuration == null) {
-                            _configuration = newConfiguration();
+                if (_instance == null) {
+                    synchronized (_instanceLock) {
+                        if (_instance == null) {
+                            _instance = ConfigInstance.load(configFile());
                         }
                     }
                 }
-                return _configuration;
+                return _instance;
         }
     }
 
+    // **************** 私有方法
+
+    /**
+     * 私有的构造函数。
+     */
+    private Config() {
+    }
+
     /**
-     * 获得新配置信息对象。
+     * 获得配置文件路径。
      *
-     * @return 新配置信息对象。
+     * @return 配置文件路径。
      */
-    public static CompositeConfiguration newConfiguration() {
+    private static String configFile() {
         if (System.getProperty(CONFIG_FILE) == null ||
             "".equals(System.getProperty(CONFIG_FILE))) {
             RuntimeException e = new RuntimeException(
@@ -674,10 +412,19 @@ public class Config {
             throw e;
         }
 
+        return System.getProperty(CONFIG_FILE);
+    }
+
+    /**
+     * 获得新配置信息对象。
+     *
+     * @return 新配置信息对象。
+     */
+    public static CompositeConfiguration newConfiguration() {
         CompositeConfiguration configuration = new CompositeConfiguration();
         try {
             configuration.addConfiguration(
-                new PropertiesConfiguration(System.getProperty(CONFIG_FILE)));
+                new PropertiesConfiguration(configFile()));
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
             throw new RuntimeException(e);
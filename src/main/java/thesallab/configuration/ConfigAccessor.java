@@ -0,0 +1,30 @@
+package thesallab.configuration;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 配置项访问类声明。
+ * <p>
+ * 用于声明配置项的接口。编译时{@link ConfigAccessorProcessor}
+ * 根据接口中由{@link ConfigKey}标注的方法生成访问类，
+ * 访问类包含配置项键常量以及类型化的静态访问方法。
+ *
+ * @author Zhang, Yin
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ConfigAccessor {
+
+    /**
+     * 生成的访问类名称。为空时为接口名称加Accessors后缀。
+     *
+     * @return 生成的访问类名称。
+     */
+    String value() default "";
+
+}
@@ -0,0 +1,460 @@
+package thesallab.configuration;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 配置项访问类生成器。
+ * <p>
+ * 编译时为每个由{@link ConfigAccessor}标注的接口生成访问类。
+ * 配置项键拼写错误、类型不受支持、默认值格式错误等问题在编译时报告。
+ * 生成的访问类只使用静态常量与{@link TypedKey}，不依赖反射，
+ * 可以直接用于AOT编译。
+ *
+ * @author Zhang, Yin
+ */
+@SupportedAnnotationTypes("thesallab.configuration.ConfigAccessor")
+public class ConfigAccessorProcessor extends AbstractProcessor {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 生成的访问类名称的默认后缀。
+     */
+    private static final String SUFFIX = "Accessors";
+
+    /**
+     * 生成的配置项声明方法名称。
+     */
+    private static final String SCHEMA = "schema";
+
+    /**
+     * 基本类型的包装类型。
+     */
+    private static final Map<String, String> boxes = new HashMap<>();
+
+    /**
+     * 可以有取值范围的值类型。
+     */
+    private static final Set<ValueType> numeric = EnumSet.of(ValueType.INT,
+        ValueType.LONG, ValueType.DOUBLE, ValueType.INT_ARRAY,
+        ValueType.INT_ARRAYS, ValueType.DOUBLE_ARRAY, ValueType.DOUBLE_ARRAYS);
+
+    static {
+        boxes.put("boolean", "Boolean");
+        boxes.put("int", "Integer");
+        boxes.put("long", "Long");
+        boxes.put("double", "Double");
+    }
+
+    // **************** 继承方法
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+                           RoundEnvironment roundEnv) {
+        for (Element element : roundEnv
+            .getElementsAnnotatedWith(ConfigAccessor.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element,
+                    "@ConfigAccessor should be used on interfaces.");
+                continue;
+            }
+
+            try {
+                generate((TypeElement) element);
+            } catch (IOException e) {
+                error(element, "Cannot write accessor class: " +
+                    e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    // **************** 公开方法
+
+    // **************** 私有方法
+
+    /**
+     * 生成访问类。
+     *
+     * @param schema 配置项声明接口。
+     * @throws IOException 写入访问类失败。
+     */
+    private void generate(TypeElement schema) throws IOException {
+        String packageName = processingEnv.getElementUtils()
+            .getPackageOf(schema).getQualifiedName().toString();
+        String className = schema.getAnnotation(ConfigAccessor.class).value();
+        if ("".equals(className)) {
+            className = schema.getSimpleName() + SUFFIX;
+        }
+
+        StringBuilder body = new StringBuilder();
+        StringBuilder schemaBody = new StringBuilder();
+        Map<String, ExecutableElement> keys = new HashMap<>();
+        Map<String, ExecutableElement> fields = new HashMap<>();
+        boolean valid = true;
+        for (ExecutableElement method : ElementFilter
+            .methodsIn(schema.getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.STATIC) ||
+                method.getModifiers().contains(Modifier.DEFAULT)) {
+                continue;
+            }
+
+            ConfigKey configKey = method.getAnnotation(ConfigKey.class);
+            if (configKey == null) {
+                error(method, "Missing @ConfigKey.");
+                valid = false;
+                continue;
+            }
+            if (keys.containsKey(configKey.value())) {
+                error(method, "Duplicate config key " + configKey.value() +
+                    ", also declared by " + keys.get(configKey.value()) +
+                    ".");
+                valid = false;
+                continue;
+            }
+            keys.put(configKey.value(), method);
+
+            String name = method.getSimpleName().toString();
+            if (SCHEMA.equals(name)) {
+                error(method, "Accessor name " + SCHEMA + " is reserved.");
+                valid = false;
+                continue;
+            }
+            String conflict = conflict(fields, constant(name), method);
+            if (conflict == null && configKey.path() == PathKind.NONE) {
+                conflict = conflict(fields, name, method);
+            }
+            if (conflict != null) {
+                error(method, "Generated field " + conflict +
+                    " conflicts with the one generated for " +
+                    fields.get(conflict) + ".");
+                valid = false;
+                continue;
+            }
+
+            valid &= accessor(body, schemaBody, method, configKey);
+        }
+        if (!valid) {
+            return;
+        }
+
+        String qualifiedName = "".equals(packageName) ? className :
+            packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler()
+            .createSourceFile(qualifiedName, schema).openWriter()) {
+            if (!"".equals(packageName)) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("import thesallab.configuration.Config;\n");
+            writer.write("import thesallab.configuration.ConfigInstance;\n");
+            writer.write("import thesallab.configuration.ConfigSchema;\n");
+            writer.write("import thesallab.configuration.PathKind;\n");
+            writer.write("import thesallab.configuration.TypedKey;\n");
+            writer.write("import thesallab.configuration.ValueType;\n\n");
+            writer.write("/**\n * 由{@link " + schema.getQualifiedName() +
+                "}生成的配置项访问类。\n */\n");
+            writer.write("public final class " + className + " {\n\n");
+            writer.write(body.toString());
+            writer.write("    /**\n     * 获得所有配置项的声明。\n     *\n" +
+                "     * @return 配置项声明。\n     */\n");
+            writer.write("    public static ConfigSchema " + SCHEMA +
+                "() {\n");
+            writer.write("        ConfigSchema schema = new ConfigSchema();\n");
+            writer.write(schemaBody.toString());
+            writer.write("        return schema;\n    }\n\n");
+            writer.write("    /**\n     * 私有的构造函数。\n     */\n");
+            writer.write("    private " + className + "() {\n    }\n\n}\n");
+        }
+    }
+
+    /**
+     * 登记生成的字段名称。
+     *
+     * @param fields 已生成的字段名称到配置项声明方法的映射。
+     * @param field  字段名称。
+     * @param method 配置项声明方法。
+     * @return 与已生成的字段冲突时返回字段名称，否则返回null。
+     */
+    private static String conflict(Map<String, ExecutableElement> fields,
+                                   String field, ExecutableElement method) {
+        return fields.putIfAbsent(field, method) == null ? null : field;
+    }
+
+    /**
+     * 生成一个配置项的键常量与访问方法。
+     *
+     * @param body       访问类内容。
+     * @param schemaBody 配置项声明方法内容。
+     * @param method     配置项声明方法。
+     * @param configKey  配置项声明。
+     * @return 配置项声明是否正确。
+     */
+    private boolean accessor(StringBuilder body, StringBuilder schemaBody,
+                             ExecutableElement method, ConfigKey configKey) {
+        String key = configKey.value();
+        if ("".equals(key)) {
+            error(method, "Config key should not be empty.");
+            return false;
+        }
+        if (!method.getParameters().isEmpty()) {
+            error(method, "Config accessor should not have parameters.");
+            return false;
+        }
+
+        String typeName = method.getReturnType().toString();
+        ValueType type = Arrays.stream(ValueType.values())
+            .filter(p -> p.getTypeName().equals(typeName)).findFirst()
+            .orElse(null);
+        if (type == null) {
+            error(method, "Unsupported config type " + typeName + ".");
+            return false;
+        }
+
+        String defaultValue = null;
+        if (configKey.defaultValue().length > 1) {
+            error(method, "At most one default value is allowed.");
+            return false;
+        }
+        if (configKey.defaultValue().length == 1) {
+            defaultValue = literal(method, type, configKey.defaultValue()[0]);
+            if (defaultValue == null) {
+                return false;
+            }
+        }
+
+        String getter = null;
+        if (configKey.path() != PathKind.NONE) {
+            getter = configKey.path().getGetter(type);
+            if (getter == null) {
+                error(method, "Path " + configKey.path() +
+                    " is not supported for type " + typeName + ".");
+                return false;
+            }
+            if (defaultValue != null) {
+                error(method, "Paths should not have default values.");
+                return false;
+            }
+        }
+
+        double[] range = configKey.range();
+        if (range.length > 0) {
+            if (range.length != 2 || !(range[0] <= range[1])) {
+                error(method, "Range should be {min, max} with min <= max.");
+                return false;
+            }
+            if (!numeric.contains(type)) {
+                error(method, "Range is not supported for type " + typeName +
+                    ".");
+                return false;
+            }
+        }
+
+        String name = method.getSimpleName().toString();
+        String constant = constant(name);
+        String javaType = typeName.startsWith("java.lang.") ?
+            typeName.substring("java.lang.".length()) : typeName;
+
+        body.append("    /**\n     * 配置项键").append(key)
+            .append("。\n     */\n");
+        body.append("    public static final String ").append(constant)
+            .append(" = ").append(quote(key)).append(";\n\n");
+
+        String read;
+        String readInstance;
+        if (getter != null) {
+            read = "Config." + getter + "(" + constant + ")";
+            readInstance = "instance." + getter + "(" + constant + ")";
+        } else {
+            String boxed = boxes.getOrDefault(javaType, javaType);
+            body.append("    /**\n     * 配置项").append(key)
+                .append("的类型化键。\n     */\n");
+            body.append("    private static final TypedKey<").append(boxed)
+                .append("> ").append(name).append(" =\n        new TypedKey<>(")
+                .append("ValueType.").append(type.name()).append(", ")
+                .append(constant);
+            if (defaultValue != null) {
+                body.append(", ").append(defaultValue);
+            }
+            body.append(");\n\n");
+
+            read = name + ".get()";
+            readInstance = name + ".get(instance)";
+        }
+
+        schemaBody.append("        schema.add(ValueType.").append(type.name())
+            .append(", ").append(constant).append(")");
+        if (defaultValue != null) {
+            schemaBody.append(".optional()");
+        }
+        if (range.length > 0) {
+            schemaBody.append("\n            .range(")
+                .append(literal(range[0])).append(", ")
+                .append(literal(range[1])).append(")");
+        }
+        if (getter != null) {
+            schemaBody.append("\n            .path(PathKind.")
+                .append(configKey.path().name()).append(")");
+        }
+        schemaBody.append(";\n");
+
+        body.append("    /**\n     * 读取配置项").append(key)
+            .append("。\n     *\n     * @return 配置项值。\n     */\n");
+        body.append("    public static ").append(javaType).append(' ')
+            .append(name).append("() {\n        return ").append(read)
+            .append(";\n    }\n\n");
+        body.append("    /**\n     * 从配置信息实例读取配置项").append(key)
+            .append("。\n     *\n     * @param instance 配置信息实例。\n")
+            .append("     * @return 配置项值。\n     */\n");
+        body.append("    public static ").append(javaType).append(' ')
+            .append(name).append("(ConfigInstance instance) {\n")
+            .append("        return ")
+            .append(readInstance).append(";\n    }\n\n");
+
+        return true;
+    }
+
+    /**
+     * 将默认值转换为Java字面量。
+     *
+     * @param method 配置项声明方法。
+     * @param type   值类型。
+     * @param value  默认值。
+     * @return Java字面量，默认值格式错误时返回null。
+     */
+    private String literal(ExecutableElement method, ValueType type,
+                           String value) {
+        try {
+            switch (type) {
+                case STRING:
+                    return quote(value);
+                case BOOLEAN:
+                    if (!"true".equalsIgnoreCase(value) &&
+                        !"false".equalsIgnoreCase(value)) {
+                        throw new IllegalArgumentException();
+                    }
+                    return Boolean.toString(Boolean.parseBoolean(value));
+                case INT:
+                    return Integer.toString(Integer.parseInt(value));
+                case LONG:
+                    return Long.parseLong(value) + "L";
+                case DOUBLE:
+                    return literal(Double.parseDouble(value));
+                default:
+                    error(method, "Default values are not supported for " +
+                        "type " + type.getTypeName() + ".");
+                    return null;
+            }
+        } catch (IllegalArgumentException e) {
+            error(method, "Default value " + value + " is not a valid " +
+                type.getTypeName() + ".");
+            return null;
+        }
+    }
+
+    /**
+     * 将浮点数转换为Java字面量。
+     *
+     * @param value 浮点数。
+     * @return Java字面量。
+     */
+    private static String literal(double value) {
+        if (Double.isNaN(value)) {
+            return "Double.NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "Double.POSITIVE_INFINITY" :
+                "Double.NEGATIVE_INFINITY";
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * 将访问方法名称转换为常量名称，如dataFolder转换为DATA_FOLDER。
+     *
+     * @param name 访问方法名称。
+     * @return 常量名称。
+     */
+    private static String constant(String name) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                builder.append('_');
+            }
+            builder.append(Character.toUpperCase(c));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 将字符串转换为Java字符串字面量。
+     *
+     * @param value 字符串。
+     * @return Java字符串字面量。
+     */
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * 报告编译错误。
+     *
+     * @param element 出错的元素。
+     * @param message 错误信息。
+     */
+    private void error(Element element, String message) {
+        processingEnv.getMessager()
+            .printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
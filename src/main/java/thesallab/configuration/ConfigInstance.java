@@ -0,0 +1,666 @@
+package thesallab.configuration;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 配置信息实例。
+ * <p>
+ * 配置项保存在不可变的快照中。由{@link #derive(Map)}派生的实例
+ * 与基础实例共享未改变的配置项，适合为大量租户分别维护少量不同的配置项。
+ * {@link Config}的静态方法使用默认实例。
+ *
+ * @author Zhang, Yin
+ */
+public class ConfigInstance {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * Log4j logger。
+     */
+    private static Logger logger = LogManager.getLogger(ConfigInstance.class);
+
+    /**
+     * 配置文件路径，不是从配置文件读取时为null。
+     */
+    private final String file;
+
+    /**
+     * 配置项快照。
+     */
+    private final AtomicReference<Snapshot> snapshot;
+
+    /**
+     * 配置项变量替换引擎。
+     */
+    private final Interpolator interpolator;
+
+    /**
+     * 已解码配置项值缓存。
+     */
+    private final DecodedValueCache decodedValues;
+
+    /**
+     * 类型化配置项键最近一次读取的结果。
+     */
+    private final Map<TypedKey<?>, Object> typedValues =
+        new ConcurrentHashMap<>();
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 从配置文件读取配置信息实例。
+     *
+     * @param file 配置文件路径。
+     * @return 配置信息实例。
+     */
+    public static ConfigInstance load(String file) {
+        return new ConfigInstance(file, new Snapshot(read(file)), null);
+    }
+
+    /**
+     * 从配置项创建配置信息实例。
+     *
+     * @param entries 配置项。
+     * @return 配置信息实例。
+     */
+    public static ConfigInstance of(Map<String, String> entries) {
+        Map<String, String> base = new HashMap<>(entries);
+        base.values().removeIf(Objects::isNull);
+        return new ConfigInstance(null, new Snapshot(base), null);
+    }
+
+    /**
+     * 派生配置信息实例。派生实例以当前实例的配置项为基础，
+     * 与当前实例共享未改变的配置项，此后双方的修改互不影响。
+     *
+     * @param overrides 派生实例中不同的配置项，值为null时删除配置项。
+     * @return 派生实例。
+     */
+    public ConfigInstance derive(Map<String, String> overrides) {
+        return new ConfigInstance(null, snapshot.get().withAll(overrides),
+            decodedValues);
+    }
+
+
+    /**
+     * 读取布尔型配置项值。
+     *
+     * @param key 配置项键。
+     * @return 布尔型配置项值。
+     * @defaultValue 默认值。
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return (Boolean) read(ValueType.BOOLEAN, key, defaultValue);
+    }
+
+    /**
+     * 读取布尔型配置项值。
+     *
+     * @param key 配置项键。
+     * @return 布尔型配置项值。
+     */
+    public boolean getBoolean(String key) {
+        return (Boolean) decode(ValueType.BOOLEAN, key);
+    }
+
+    /**
+     * 获取用于读取的文件夹路径。
+     *
+     * @param key 配置项键。
+     * @return 文件夹路径。
+     */
+    public String getFolderForRead(String key) {
+        String value = getFolder(key);
+
+        if (!new File(value).exists()) {
+            throw new ConfigItemException(key, "Folder does not exist.");
+        }
+
+        return value;
+    }
+
+    /**
+     * 获取用于写入的文件夹路径。
+     *
+     * @param key 配置项键。
+     * @return 文件夹路径。
+     */
+    public String getFolderForWrite(String key) {
+        String value = getFolder(key);
+
+        File folder = new File(value);
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        return value;
+    }
+
+    /**
+     * 获取文件夹路径。
+     *
+     * @param key 配置项键。
+     * @return 文件夹路径。
+     */
+    public String getFolder(String key) {
+        String value = getNotNull(key);
+
+        if (!value.endsWith("/")) {
+            throw new ConfigItemException(key, "Folder should end with \"/\"");
+        }
+
+        return value;
+    }
+
+    /**
+     * 获取用于读取的路径。
+     *
+     * @param key 配置项键。
+     * @return 路径。
+     */
+    public String getPathForRead(String key) {
+        String value = getNotNull(key);
+
+        if (!new File(value).exists()) {
+            throw new ConfigItemException(key, "Path does not exist.");
+        }
+
+        return value;
+    }
+
+    /**
+     * 获取用于读取的路经数组。
+     *
+     * @param key 配置项键。
+     * @return 路经数组。
+     */
+    public String[] getPathArrayForRead(String key) {
+        String[] values = getStringArray(key);
+
+        if (Arrays.stream(values).anyMatch(p -> !new File(p).exists())) {
+            throw new ConfigItemException(key, "Paths do not exist: " + String
+                .join(", ",
+                    Arrays.stream(values).filter(p -> !new File(p).exists())
+                        .toArray(String[]::new)));
+        }
+
+        return values;
+    }
+
+    /**
+     * 获取用于写入的路径数组。
+     *
+     * @param key 配置项键。
+     * @return 路经数组。
+     */
+    public String[] getPathArrayForWrite(String key) {
+        String[] values = getStringArray(key);
+
+        if (Arrays.stream(values).anyMatch(p -> p.endsWith("/"))) {
+            throw new ConfigItemException(key,
+                "Path should not end with \"/\"");
+        }
+
+        File[] files =
+            Arrays.stream(values).map(p -> new File(p)).toArray(File[]::new);
+        File[] existingFiles =
+            Arrays.stream(files).filter(p -> p.exists()).toArray(File[]::new);
+        if (Arrays.stream(existingFiles).anyMatch(p -> !p.isFile())) {
+            throw new ConfigItemException(key,
+                "Path already exists and is not a file.");
+        }
+        Arrays.stream(existingFiles).filter(p -> p.isFile())
+            .forEach(p -> p.delete());
+
+        Arrays.stream(files).map(p -> p.getParentFile())
+            .filter(p -> !p.exists()).forEach(p -> p.mkdirs());
+
+        return values;
+    }
+
+    /**
+     * 获取用于写入的路径。
+     *
+     * @param key 配置项键。
+     * @return 路径。
+     */
+    public String getPathForWrite(String key) {
+        String value = getNotNull(key);
+
+        if (key.endsWith("/")) {
+            throw new ConfigItemException(key,
+                "Path should not end with \"/\"");
+        }
+
+        File file = new File(value);
+        if (file.exists()) {
+            if (file.isFile()) {
+                file.delete();
+            } else {
+                throw new ConfigItemException(key,
+                    "Path already exists and is not a file.");
+            }
+        }
+
+        File folder = file.getParentFile();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        return value;
+    }
+
+
+    /**
+     * 获得长整数配置项值。
+     *
+     * @param key          配置项键。
+     * @param defaultValue 默认值。
+     * @return 长整数配置项值。
+     */
+    public long getLong(String key, long defaultValue) {
+        return (Long) read(ValueType.LONG, key, defaultValue);
+    }
+
+
+    /**
+     * 获得长整数配置项值。
+     *
+     * @param key 配置项键。
+     * @return 长整数配置项值。
+     */
+    public long getLong(String key) {
+        return (Long) decode(ValueType.LONG, key);
+    }
+
+    /**
+     * 获得浮点数配置项值
+     *
+     * @param key          配置项键。
+     * @param defaultValue 默认值。
+     * @return 浮点数配置项值。
+     */
+    public double getDouble(String key, double defaultValue) {
+        return (Double) read(ValueType.DOUBLE, key, defaultValue);
+    }
+
+    /**
+     * 获得浮点数配置项值。
+     *
+     * @param key 配置项键。
+     * @return 浮点数配置项值。
+     */
+    public double getDouble(String key) {
+        return (Double) decode(ValueType.DOUBLE, key);
+    }
+
+    /**
+     * 获得浮点数组配置项值。
+     *
+     * @param key 配置项键。
+     * @return 浮点数组。
+     */
+    public double[] getDoubleArray(String key) {
+        return (double[]) decode(ValueType.DOUBLE_ARRAY, key);
+    }
+
+    /**
+     * 获得二维浮点数组配置项值。
+     *
+     * @param key 配置项键。
+     * @return 二维浮点数组。
+     */
+    public double[][] getDoubleArrays(String key) {
+        return (double[][]) decode(ValueType.DOUBLE_ARRAYS, key);
+    }
+
+    /**
+     * 获得整数配置项值。
+     *
+     * @param key          配置项键。
+     * @param defaultValue 默认值。
+     * @return 整数配置项值。
+     */
+    public int getInt(String key, int defaultValue) {
+        return (Integer) read(ValueType.INT, key, defaultValue);
+    }
+
+    /**
+     * 获得整数配置项值。
+     *
+     * @param key 配置项键。
+     * @return 整数配置项值。
+     */
+    public int getInt(String key) {
+        return (Integer) decode(ValueType.INT, key);
+    }
+
+    /**
+     * 获得整数数组配置项值。
+     *
+     * @param key 配置项键。
+     * @return 整数数组。
+     */
+    public int[] getIntArray(String key) {
+        return (int[]) decode(ValueType.INT_ARRAY, key);
+    }
+
+    /**
+     * 获得二维整数数组配置项值。
+     *
+     * @param key 配置项键。
+     * @return 二维整数数组。
+     */
+    public int[][] getIntArrays(String key) {
+        return (int[][]) decode(ValueType.INT_ARRAYS, key);
+    }
+
+    /**
+     * 获得二维字符串数组配置项值。
+     *
+     * @param key 配置项键。
+     * @return 二维字符串数组。
+     */
+    public String[][] getStringArrays(String key) {
+        return (String[][]) decode(ValueType.STRING_ARRAYS, key);
+    }
+
+    /**
+     * 获得字符串数组配置项值。
+     *
+     * @param key 配置项键。
+     * @return 字符串数组。
+     */
+    public String[] getStringArray(String key) {
+        return (String[]) decode(ValueType.STRING_ARRAY, key);
+    }
+
+    /**
+     * 获得时间戳配置项值。
+     *
+     * @param key 配置项键。
+     * @return 时间戳。
+     */
+    public Timestamp getTimestamp(String key) {
+        return (Timestamp) decode(ValueType.TIMESTAMP, key);
+    }
+
+    /**
+     * 获得非空的配置项值。
+     *
+     * @param key 配置项键。
+     * @return 配置项值。
+     */
+    public String getNotNull(String key) {
+        String value = get(key);
+
+        if (value == null) {
+            RuntimeException e = new MissingConfigItemException(key);
+            logger.fatal(e.getMessage(), e);
+            throw e;
+        }
+
+        return value;
+    }
+
+    /**
+     * 获得配置项值。
+     *
+     * @param key          配置项键。
+     * @param defaultValue 默认值。
+     * @return 配置项值。
+     */
+    public String get(String key, String defaultValue) {
+        String value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * 获得配置项值。
+     *
+     * @param key 配置项键。
+     * @return 配置项值。
+     */
+    public String get(String key) {
+        try {
+            return interpolator.get(key);
+        } catch (ConfigItemException e) {
+            logger.error(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 设置配置项键。
+     *
+     * @param key   配置项键。
+     * @param value 配置项值，为null时删除配置项。
+     */
+    public void set(String key, String value) {
+        snapshot.updateAndGet(p -> p.with(key, value));
+        interpolator.invalidate(Collections.singleton(key));
+    }
+
+    /**
+     * 批量设置配置项值。所有配置项作为一个新快照一次发布，
+     * 读取者要么看到全部修改，要么看不到任何修改。
+     * 并发的写入者通过比较并交换发布快照，不会互相阻塞。
+     *
+     * @param entries 配置项，值为null时删除配置项。
+     */
+    public void setAll(Map<String, String> entries) {
+        Map<String, String> changes = new HashMap<>(entries);
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        snapshot.updateAndGet(p -> p.withAll(changes));
+        interpolator.invalidate(changes.keySet());
+    }
+
+    /**
+     * 开始批量修改。修改在提交时通过{@link #setAll(Map)}一次发布。
+     *
+     * @return 批量修改。
+     */
+    public ConfigTransaction transaction() {
+        return new ConfigTransaction(this);
+    }
+
+    /**
+     * 重新读取配置文件。只有值改变的配置项及引用它们的配置项需要重新替换变量。
+     * 此前派生的实例不受影响。
+     */
+    public void reload() {
+        if (file == null) {
+            throw new ArgumentError(ConfigInstance.class, "reload", "file",
+                "Instance was not loaded from a config file");
+        }
+
+        Snapshot current = new Snapshot(read(file));
+        List<String> changed = new ArrayList<>();
+
+        Snapshot previous = snapshot.getAndSet(current);
+        current.forEach((k, v) -> {
+            if (!previous.contains(k, v)) {
+                changed.add(k);
+            }
+        });
+        previous.forEach((k, v) -> {
+            if (!current.contains(k)) {
+                changed.add(k);
+            }
+        });
+        interpolator.invalidate(changed);
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 配置信息实例构造函数。
+     *
+     * @param file          配置文件路径。
+     * @param snapshot      配置项快照。
+     * @param decodedValues 基础实例的已解码配置项值缓存。
+     */
+    private ConfigInstance(String file, Snapshot snapshot,
+                           DecodedValueCache decodedValues) {
+        this.file = file;
+        this.snapshot = new AtomicReference<>(snapshot);
+        this.interpolator = new Interpolator(this.snapshot);
+        this.decodedValues = new DecodedValueCache(decodedValues);
+    }
+
+    /**
+     * 获得当前配置项快照。
+     *
+     * @return 配置项快照。
+     */
+    Snapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * 获得类型化配置项键在本实例中最近一次读取的结果。
+     *
+     * @return 类型化配置项键到读取结果。
+     */
+    Map<TypedKey<?>, Object> typedValues() {
+        return typedValues;
+    }
+
+    /**
+     * 判断配置项在快照中的值是否只取决于快照，引用系统属性的配置项不是。
+     *
+     * @param snapshot 配置项快照。
+     * @param key      配置项键。
+     * @return 配置项值是否只取决于快照。
+     */
+    boolean isStable(Snapshot snapshot, String key) {
+        return interpolator.isStable(snapshot, key);
+    }
+
+    /**
+     * 读取并解码配置项值。
+     *
+     * @param type         值类型。
+     * @param key          配置项键。
+     * @param defaultValue 配置项不存在时返回的默认值，为null时配置项必须存在。
+     * @return 解码后的配置项值。
+     */
+    Object read(ValueType type, String key, Object defaultValue) {
+        if (defaultValue == null) {
+            return decode(type, key);
+        }
+
+        String value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return decodedValues.get(type, key, value, false);
+        } catch (ConfigItemException e) {
+            logger.error(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 预先解码配置项值。
+     *
+     * @param type 值类型。
+     * @param key  配置项键。
+     */
+    void prefetch(ValueType type, String key) {
+        String value = get(key);
+        if (value != null) {
+            decodedValues.get(type, key, value, true);
+        }
+    }
+
+    /**
+     * 校验时解码已读取的配置项值，解码结果供此后的读取使用，
+     * 但不计入启动访问记录与预取的统计。
+     *
+     * @param type  值类型。
+     * @param key   配置项键。
+     * @param value 替换变量后的配置项值。
+     * @return 解码后的配置项值。
+     * @throws ConfigItemException 配置项值格式错误。
+     */
+    Object validate(ValueType type, String key, String value) {
+        return decodedValues.validate(type, key, value);
+    }
+
+    /**
+     * 获得解码后的配置项值。
+     *
+     * @param type 值类型。
+     * @param key  配置项键。
+     * @return 解码后的配置项值。
+     */
+    private Object decode(ValueType type, String key) {
+        String value = getNotNull(key);
+
+        try {
+            return decodedValues.get(type, key, value, false);
+        } catch (ConfigItemException e) {
+            logger.error(e);
+            throw e;
+        }
+    }
+
+
+    /**
+     * 读取配置文件。多值配置项取第一个值。
+     *
+     * @param file 配置文件路径。
+     * @return 配置项。
+     */
+    private static Map<String, String> read(String file) {
+        PropertiesConfiguration configuration;
+        try {
+            configuration = new PropertiesConfiguration(file);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            throw new RuntimeException(e);
+        }
+
+        Map<String, String> entries = new HashMap<>();
+        Iterator<?> keys = configuration.getKeys();
+        while (keys.hasNext()) {
+            String key = (String) keys.next();
+            Object value = configuration.getProperty(key);
+            if (value instanceof List) {
+                List<?> values = (List<?>) value;
+                value = values.isEmpty() ? null : values.get(0);
+            }
+            if (value != null) {
+                entries.put(key, value.toString());
+            }
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,52 @@
+package thesallab.configuration;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 配置项声明。
+ * <p>
+ * 用于{@link ConfigAccessor}接口的方法，方法名称为访问方法名称，
+ * 方法返回类型为配置项值类型，参见{@link ValueType#getTypeName()}。
+ *
+ * @author Zhang, Yin
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface ConfigKey {
+
+    /**
+     * 配置项键。
+     *
+     * @return 配置项键。
+     */
+    String value();
+
+    /**
+     * 默认值。为空时配置项必须存在，最多只能有一个元素。
+     * 只有字符串、布尔值、整数、长整数与浮点数类型可以有默认值。
+     *
+     * @return 默认值。
+     */
+    String[] defaultValue() default {};
+
+    /**
+     * 路径语义。只有字符串与字符串数组类型可以有路径语义。
+     *
+     * @return 路径语义。
+     */
+    PathKind path() default PathKind.NONE;
+
+    /**
+     * 取值范围，为空或包含最小值与最大值两个元素。
+     * 只有数值与数值数组类型可以有取值范围，数组类型检查每个元素。
+     *
+     * @return 取值范围。
+     */
+    double[] range() default {};
+
+}
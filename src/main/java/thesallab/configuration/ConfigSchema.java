@@ -0,0 +1,318 @@
+package thesallab.configuration;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+
+/**
+ * 配置项声明。
+ * <p>
+ * 声明配置项的类型、取值范围与路径语义，在启动时一次性校验所有配置项。
+ * 各配置项的解码与文件系统检查并行执行，所有问题汇总后一起报告。
+ * 校验时解码的值存入配置信息实例的已解码配置项值缓存，
+ * 此后读取配置项不会再次解码。
+ *
+ * @author Zhang, Yin
+ */
+public class ConfigSchema {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * Log4j logger。
+     */
+    private static Logger logger = LogManager.getLogger(ConfigSchema.class);
+
+    /**
+     * 配置项。
+     */
+    private final List<Item> items = new ArrayList<>();
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 声明配置项。
+     *
+     * @param type 值类型。
+     * @param key  配置项键。
+     * @return 配置项。
+     */
+    public Item add(ValueType type, String key) {
+        if (type == null) {
+            throw new ArgumentError(ConfigSchema.class, "add", "type",
+                "null");
+        }
+        if (key == null || "".equals(key)) {
+            throw new ArgumentError(ConfigSchema.class, "add", "key",
+                "empty");
+        }
+
+        Item item = new Item(type, key);
+        items.add(item);
+        return item;
+    }
+
+    /**
+     * 校验默认配置信息实例。
+     *
+     * @throws ConfigValidationException 存在不符合声明的配置项。
+     */
+    public void check() {
+        check(Config.instance());
+    }
+
+    /**
+     * 校验配置信息实例。
+     *
+     * @param instance 配置信息实例。
+     * @throws ConfigValidationException 存在不符合声明的配置项。
+     */
+    public void check(ConfigInstance instance) {
+        List<ConfigItemException> problems = validate(instance);
+        if (!problems.isEmpty()) {
+            ConfigValidationException e =
+                new ConfigValidationException(problems);
+            logger.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 校验配置信息实例。
+     *
+     * @param instance 配置信息实例。
+     * @return 不符合声明的配置项的异常，按声明顺序排列。
+     */
+    public List<ConfigItemException> validate(ConfigInstance instance) {
+        return items.parallelStream().map(p -> p.validate(instance))
+            .filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 配置项。
+     */
+    public static final class Item {
+
+        /**
+         * 值类型。
+         */
+        private final ValueType type;
+
+        /**
+         * 配置项键。
+         */
+        private final String key;
+
+        /**
+         * 是否可以不存在。
+         */
+        private boolean optional = false;
+
+        /**
+         * 最小值，包含。
+         */
+        private double min = Double.NEGATIVE_INFINITY;
+
+        /**
+         * 最大值，包含。
+         */
+        private double max = Double.POSITIVE_INFINITY;
+
+        /**
+         * 路径语义。
+         */
+        private PathKind path = PathKind.NONE;
+
+        /**
+         * 配置项构造函数。
+         *
+         * @param type 值类型。
+         * @param key  配置项键。
+         */
+        private Item(ValueType type, String key) {
+            this.type = type;
+            this.key = key;
+        }
+
+        /**
+         * 声明配置项可以不存在。
+         *
+         * @return 配置项。
+         */
+        public Item optional() {
+            this.optional = true;
+            return this;
+        }
+
+        /**
+         * 声明数值或数值数组中每个元素的取值范围。NaN不在任何范围内。
+         *
+         * @param min 最小值，包含。
+         * @param max 最大值，包含。
+         * @return 配置项。
+         */
+        public Item range(double min, double max) {
+            if (numbers(type, null) == null) {
+                throw new ArgumentError(Item.class, "range", "type",
+                    type + " is not numeric");
+            }
+            if (!(min <= max)) {
+                throw new ArgumentError(Item.class, "range", "min",
+                    "should not be greater than max or NaN");
+            }
+
+            this.min = min;
+            this.max = max;
+            return this;
+        }
+
+        /**
+         * 声明路径语义。
+         *
+         * @param path 路径语义。
+         * @return 配置项。
+         */
+        public Item path(PathKind path) {
+            if (path != PathKind.NONE && path.getGetter(type) == null) {
+                throw new ArgumentError(Item.class, "path", "path",
+                    path + " is not supported for " + type);
+            }
+
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * 校验配置项。
+         *
+         * @param instance 配置信息实例。
+         * @return 配置项异常，配置项正确时返回null。
+         */
+        private ConfigItemException validate(ConfigInstance instance) {
+            try {
+                String value = instance.get(key);
+                if (value == null) {
+                    return optional ? null : new ConfigItemException(key,
+                        "Missing config item.");
+                }
+
+                Object decoded = instance.validate(type, key, value);
+
+                DoubleStream numbers = numbers(type, decoded);
+                if (numbers != null &&
+                    numbers.anyMatch(p -> !(p >= min && p <= max))) {
+                    return new ConfigItemException(key,
+                        "should be in range [" + min + ", " + max + "].");
+                }
+
+                if (path != PathKind.NONE) {
+                    String[] paths = type == ValueType.STRING_ARRAY ?
+                        (String[]) decoded : new String[] {(String) decoded};
+                    List<String> problems = new ArrayList<>();
+                    for (String p : paths) {
+                        String problem = checkPath(p);
+                        if (problem != null) {
+                            problems.add(problem);
+                        }
+                    }
+                    if (!problems.isEmpty()) {
+                        return new ConfigItemException(key,
+                            String.join("; ", problems));
+                    }
+                }
+
+                return null;
+            } catch (ConfigItemException e) {
+                return e;
+            }
+        }
+
+        /**
+         * 检查路径，不创建或删除任何文件。
+         *
+         * @param value 路径。
+         * @return 问题描述，路径正确时返回null。
+         */
+        private String checkPath(String value) {
+            File file = new File(value);
+            switch (path) {
+                case FOLDER:
+                case FOLDER_FOR_WRITE:
+                case FOLDER_FOR_READ:
+                    if (!value.endsWith("/")) {
+                        return "Folder should end with \"/\"";
+                    }
+                    if (path == PathKind.FOLDER_FOR_READ && !file.exists()) {
+                        return "Folder does not exist: " + value;
+                    }
+                    if (path == PathKind.FOLDER_FOR_WRITE && file.exists() &&
+                        !file.isDirectory()) {
+                        return "Folder already exists and is not a folder: " +
+                            value;
+                    }
+                    return null;
+                case PATH_FOR_READ:
+                    return file.exists() ? null :
+                        "Path does not exist: " + value;
+                case PATH_FOR_WRITE:
+                    if (value.endsWith("/")) {
+                        return "Path should not end with \"/\"";
+                    }
+                    return file.exists() && !file.isFile() ?
+                        "Path already exists and is not a file: " + value :
+                        null;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * 获得数值或数值数组中的所有元素。
+         *
+         * @param type    值类型。
+         * @param decoded 解码后的值，为null时只判断值类型是否为数值类型。
+         * @return 所有元素，非数值类型返回null。
+         */
+        private static DoubleStream numbers(ValueType type, Object decoded) {
+            switch (type) {
+                case INT:
+                case LONG:
+                case DOUBLE:
+                    return decoded == null ? DoubleStream.empty() :
+                        DoubleStream.of(((Number) decoded).doubleValue());
+                case INT_ARRAY:
+                    return decoded == null ? DoubleStream.empty() :
+                        Arrays.stream((int[]) decoded).asDoubleStream();
+                case INT_ARRAYS:
+                    return decoded == null ? DoubleStream.empty() :
+                        Arrays.stream((int[][]) decoded)
+                            .flatMapToDouble(
+                                p -> Arrays.stream(p).asDoubleStream());
+                case DOUBLE_ARRAY:
+                    return decoded == null ? DoubleStream.empty() :
+                        Arrays.stream((double[]) decoded);
+                case DOUBLE_ARRAYS:
+                    return decoded == null ? DoubleStream.empty() :
+                        Arrays.stream((double[][]) decoded)
+                            .flatMapToDouble(Arrays::stream);
+                default:
+                    return null;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,101 @@
+package thesallab.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 配置项批量修改。
+ * <p>
+ * 修改先记录在本地，提交时作为一个新快照一次发布，
+ * 读取者不会看到只应用了一部分的修改。同一配置项多次修改时以最后一次为准。
+ * 本类不是线程安全的，每个线程应使用各自的批量修改。
+ *
+ * @author Zhang, Yin
+ */
+public final class ConfigTransaction {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 配置信息实例。
+     */
+    private final ConfigInstance instance;
+
+    /**
+     * 尚未提交的修改，值为null时删除配置项。
+     */
+    private final Map<String, String> changes = new HashMap<>();
+
+    /**
+     * 是否已经提交。
+     */
+    private boolean committed = false;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 设置配置项值。
+     *
+     * @param key   配置项键。
+     * @param value 配置项值，为null时删除配置项。
+     * @return 批量修改。
+     */
+    public ConfigTransaction set(String key, String value) {
+        if (key == null) {
+            throw new ArgumentError(ConfigTransaction.class, "set", "key",
+                "null");
+        }
+        ensureOpen("set");
+
+        changes.put(key, value);
+        return this;
+    }
+
+    /**
+     * 删除配置项。
+     *
+     * @param key 配置项键。
+     * @return 批量修改。
+     */
+    public ConfigTransaction remove(String key) {
+        return set(key, null);
+    }
+
+    /**
+     * 提交所有修改。每个批量修改只能提交一次。
+     */
+    public void commit() {
+        ensureOpen("commit");
+
+        committed = true;
+        instance.setAll(changes);
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 批量修改构造函数。
+     *
+     * @param instance 配置信息实例。
+     */
+    ConfigTransaction(ConfigInstance instance) {
+        this.instance = instance;
+    }
+
+    /**
+     * 检查批量修改尚未提交。
+     *
+     * @param method 调用的方法名称。
+     */
+    private void ensureOpen(String method) {
+        if (committed) {
+            throw new ArgumentError(ConfigTransaction.class, method,
+                "transaction", "Already committed");
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package thesallab.configuration;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 配置校验异常，汇总所有不符合配置项声明的配置项。
+ *
+ * @author Zhang, Yin
+ */
+public class ConfigValidationException extends RuntimeException {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 配置项异常。
+     */
+    private final List<ConfigItemException> problems;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 配置校验异常构造函数。
+     *
+     * @param problems 配置项异常。
+     */
+    public ConfigValidationException(List<ConfigItemException> problems) {
+        super(String.format("%d invalid config items:%n%s", problems.size(),
+            problems.stream().map(p -> "  " + p.getMessage())
+                .collect(Collectors.joining(String.format("%n")))));
+        this.problems = Collections.unmodifiableList(problems);
+    }
+
+    /**
+     * 获得配置项异常。
+     *
+     * @return 配置项异常。
+     */
+    public List<ConfigItemException> getProblems() {
+        return problems;
+    }
+
+    // **************** 私有方法
+
+}
@@ -0,0 +1,165 @@
+package thesallab.configuration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 已解码配置项值缓存。
+ * <p>
+ * 缓存项同时保存解码所用的原始字符串，读取时与当前原始值比较，
+ * 原始值改变后缓存项自动失效，因此无需在设置配置项时显式清除缓存。
+ * 派生配置信息实例的缓存未命中时查找基础实例的缓存，
+ * 与基础实例相同的配置项不会被重复解码。
+ *
+ * @author Zhang, Yin
+ */
+final class DecodedValueCache {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 配置项键到缓存项的映射。同一配置项按不同类型读取时只保留最近一次的结果。
+     */
+    private final ConcurrentHashMap<String, Entry> entries =
+        new ConcurrentHashMap<>();
+
+    /**
+     * 基础实例的缓存，没有时为null。
+     */
+    private final DecodedValueCache parent;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 已解码配置项值缓存构造函数。
+     *
+     * @param parent 基础实例的缓存，没有时为null。
+     */
+    DecodedValueCache(DecodedValueCache parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * 获得解码后的配置项值，缓存未命中时解码并缓存。
+     *
+     * @param type     值类型。
+     * @param key      配置项键。
+     * @param value    配置项原始值。
+     * @param prefetch 是否由预取线程调用。
+     * @return 解码后的值的副本。
+     */
+    Object get(ValueType type, String key, String value, boolean prefetch) {
+        Entry entry = find(type, key, value);
+        if (entry != null) {
+            if (!prefetch) {
+                AccessProfile.hit(type, key, entry);
+            }
+            return type.copy(entry.decoded);
+        }
+
+        Object decoded = type.decode(key, value);
+        entries.put(key, new Entry(type, value, decoded, prefetch));
+        AccessProfile.miss(type, key, prefetch);
+        return type.copy(decoded);
+    }
+
+    /**
+     * 获得校验时解码的配置项值，缓存未命中时解码并缓存。
+     * 不计入{@link AccessProfile}的统计，也不标记为预取项。
+     *
+     * @param type  值类型。
+     * @param key   配置项键。
+     * @param value 配置项原始值。
+     * @return 解码后的值的副本。
+     */
+    Object validate(ValueType type, String key, String value) {
+        Entry entry = find(type, key, value);
+        if (entry != null) {
+            return type.copy(entry.decoded);
+        }
+
+        Object decoded = type.decode(key, value);
+        entries.put(key, new Entry(type, value, decoded, false));
+        return type.copy(decoded);
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 在当前缓存及基础实例的缓存中查找与原始值一致的缓存项。
+     *
+     * @param type  值类型。
+     * @param key   配置项键。
+     * @param value 配置项原始值。
+     * @return 缓存项，未找到时返回null。
+     */
+    private Entry find(ValueType type, String key, String value) {
+        for (DecodedValueCache cache = this; cache != null;
+             cache = cache.parent) {
+            Entry entry = cache.entries.get(key);
+            if (entry != null && entry.matches(type, value)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 缓存项。
+     */
+    static final class Entry {
+
+        /**
+         * 值类型。
+         */
+        final ValueType type;
+
+        /**
+         * 原始值。
+         */
+        final String value;
+
+        /**
+         * 解码后的值。
+         */
+        final Object decoded;
+
+        /**
+         * 是否尚未被请求线程读取的预取项。
+         */
+        final AtomicBoolean untouchedPrefetch;
+
+        /**
+         * 缓存项构造函数。
+         *
+         * @param type     值类型。
+         * @param value    原始值。
+         * @param decoded  解码后的值。
+         * @param prefetch 是否由预取线程解码。
+         */
+        Entry(ValueType type, String value, Object decoded, boolean prefetch) {
+            this.type = type;
+            this.value = value;
+            this.decoded = decoded;
+            this.untouchedPrefetch = new AtomicBoolean(prefetch);
+        }
+
+        /**
+         * 判断缓存项是否与值类型及原始值一致。
+         *
+         * @param type  值类型。
+         * @param value 当前原始值。
+         * @return 是否一致。
+         */
+        boolean matches(ValueType type, String value) {
+            return this.type == type &&
+                (this.value == value || this.value.equals(value));
+        }
+
+    }
+
+}
@@ -0,0 +1,466 @@
+package thesallab.configuration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 配置项变量替换引擎。
+ * <p>
+ * 含有<code>${...}</code>引用的配置项值只编译一次，编译结果按引用拆分为文本与变量片段。
+ * 替换结果按配置项键缓存，同时记录配置项之间的引用关系；
+ * 配置项改变时只清除直接或间接引用它的配置项的缓存。
+ * 引用规则与commons-configuration一致：<code>sys:</code>前缀读取系统属性，
+ * <code>env:</code>前缀读取环境变量，无法解析的引用原样保留，
+ * <code>$${...}</code>表示不替换的<code>${...}</code>。
+ * <p>
+ * 一次替换只读取同一个快照。替换结果记录直接或间接引用的配置项的原始值，
+ * 只有这些原始值在读取者的快照中都没有改变时才使用，
+ * 因此与写入并发保存的过期结果不会被使用，也不会看到只应用了一部分的批量修改。
+ * 配置项改变后清除替换结果只是为了释放内存。
+ *
+ * @author Zhang, Yin
+ */
+final class Interpolator {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 变量引用开始标记。
+     */
+    private static final String PREFIX = "${";
+
+    /**
+     * 变量引用结束标记。
+     */
+    private static final char SUFFIX = '}';
+
+    /**
+     * 转义字符。
+     */
+    private static final char ESCAPE = '$';
+
+    /**
+     * 系统属性引用前缀。
+     */
+    private static final String SYSTEM_PREFIX = "sys:";
+
+    /**
+     * 环境变量引用前缀。
+     */
+    private static final String ENVIRONMENT_PREFIX = "env:";
+
+    /**
+     * 配置项快照。
+     */
+    private final AtomicReference<Snapshot> snapshot;
+
+    /**
+     * 编译后的配置项值。
+     */
+    private final ConcurrentHashMap<String, Template> templates =
+        new ConcurrentHashMap<>();
+
+    /**
+     * 替换结果。
+     */
+    private final ConcurrentHashMap<String, Resolved> resolved =
+        new ConcurrentHashMap<>();
+
+    /**
+     * 配置项键到引用它的配置项键的集合。
+     */
+    private final ConcurrentHashMap<String, Set<String>> dependents =
+        new ConcurrentHashMap<>();
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 变量替换引擎构造函数。
+     *
+     * @param snapshot 配置项快照。
+     */
+    Interpolator(AtomicReference<Snapshot> snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * 获得替换变量后的配置项值。
+     *
+     * @param key 配置项键。
+     * @return 配置项值，配置项不存在时返回null。
+     * @throws ConfigItemException 配置项之间存在循环引用。
+     */
+    String get(String key) {
+        Snapshot current = snapshot.get();
+        String raw = current.get(key);
+        if (raw == null || raw.indexOf(PREFIX) < 0) {
+            return raw;
+        }
+
+        Resolved cached = resolved.get(key);
+        if (cached != null && cached.matches(current, raw)) {
+            return cached.value;
+        }
+
+        return resolve(key, raw, new Resolution(current));
+    }
+
+    /**
+     * 判断配置项的替换结果是否只取决于快照。
+     * 直接或间接引用系统属性的配置项不缓存替换结果，每次读取都可能不同。
+     * 尚未缓存替换结果时也视为不确定。
+     *
+     * @param snapshot 配置项快照。
+     * @param key      配置项键。
+     * @return 替换结果是否只取决于快照。
+     */
+    boolean isStable(Snapshot snapshot, String key) {
+        String raw = snapshot.get(key);
+        if (raw == null || raw.indexOf(PREFIX) < 0) {
+            return true;
+        }
+
+        Resolved cached = resolved.get(key);
+        return cached != null && cached.matches(snapshot, raw);
+    }
+
+    /**
+     * 清除配置项及所有直接或间接引用它们的配置项的替换结果，在发布新快照后调用。
+     *
+     * @param keys 改变的配置项键。
+     */
+    void invalidate(Collection<String> keys) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(keys);
+        while (!pending.isEmpty()) {
+            String current = pending.pop();
+            if (!visited.add(current)) {
+                continue;
+            }
+
+            resolved.remove(current);
+            Set<String> references = dependents.get(current);
+            if (references != null) {
+                references.forEach(pending::push);
+            }
+        }
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 替换配置项值中的变量。
+     *
+     * @param key        配置项键。
+     * @param raw        配置项原始值。
+     * @param resolution 替换上下文。
+     * @return 替换变量后的配置项值。
+     */
+    private String resolve(String key, String raw, Resolution resolution) {
+        if (resolution.path.contains(key)) {
+            List<String> cycle =
+                new ArrayList<>(resolution.path.subList(
+                    resolution.path.indexOf(key), resolution.path.size()));
+            cycle.add(key);
+            throw new ConfigItemException(resolution.path.get(0),
+                "Cyclic variable reference: " + String.join(" -> ", cycle));
+        }
+
+        boolean cacheable = resolution.cacheable;
+        Map<String, String> dependencies = resolution.dependencies;
+        resolution.cacheable = true;
+        resolution.dependencies = new HashMap<>();
+        resolution.path.add(key);
+
+        Template template = templates.get(key);
+        if (template == null || !template.matches(raw)) {
+            template = Template.compile(raw);
+            templates.put(key, template);
+        }
+
+        StringBuilder builder = new StringBuilder(raw.length());
+        builder.append(template.texts[0]);
+        for (int i = 0; i < template.references.length; i++) {
+            builder.append(reference(key, template.references[i], resolution));
+            builder.append(template.texts[i + 1]);
+        }
+        String value = builder.toString();
+
+        resolution.path.remove(resolution.path.size() - 1);
+        if (resolution.cacheable) {
+            resolved.put(key, new Resolved(raw, value,
+                resolution.dependencies));
+        }
+        resolution.cacheable &= cacheable;
+        dependencies.putAll(resolution.dependencies);
+        resolution.dependencies = dependencies;
+
+        return value;
+    }
+
+    /**
+     * 获得变量引用的值。
+     *
+     * @param key        引用变量的配置项键。
+     * @param reference  变量名称。
+     * @param resolution 替换上下文。
+     * @return 变量的值，无法解析时返回原始引用。
+     */
+    private String reference(String key, String reference,
+                             Resolution resolution) {
+        String value;
+        if (reference.startsWith(SYSTEM_PREFIX)) {
+            resolution.cacheable = false;
+            value = System.getProperty(
+                reference.substring(SYSTEM_PREFIX.length()));
+        } else if (reference.startsWith(ENVIRONMENT_PREFIX)) {
+            value = System.getenv(
+                reference.substring(ENVIRONMENT_PREFIX.length()));
+        } else {
+            dependents.computeIfAbsent(reference,
+                k -> ConcurrentHashMap.newKeySet()).add(key);
+
+            value = resolution.snapshot.get(reference);
+            resolution.dependencies.put(reference, value);
+            if (value != null && value.indexOf(PREFIX) >= 0) {
+                Resolved cached = resolved.get(reference);
+                if (cached != null &&
+                    cached.matches(resolution.snapshot, value)) {
+                    cached.addDependencies(resolution.dependencies);
+                    value = cached.value;
+                } else {
+                    value = resolve(reference, value, resolution);
+                }
+            }
+        }
+
+        return value != null ? value : PREFIX + reference + SUFFIX;
+    }
+
+    /**
+     * 编译后的配置项值。
+     */
+    private static final class Template {
+
+        /**
+         * 原始值。
+         */
+        final String raw;
+
+        /**
+         * 文本片段，比变量片段多一个。
+         */
+        final String[] texts;
+
+        /**
+         * 变量片段。
+         */
+        final String[] references;
+
+        /**
+         * 编译后的配置项值构造函数。
+         *
+         * @param raw        原始值。
+         * @param texts      文本片段。
+         * @param references 变量片段。
+         */
+        private Template(String raw, String[] texts, String[] references) {
+            this.raw = raw;
+            this.texts = texts;
+            this.references = references;
+        }
+
+        /**
+         * 编译配置项值。
+         *
+         * @param raw 原始值。
+         * @return 编译后的配置项值。
+         */
+        static Template compile(String raw) {
+            List<String> texts = new ArrayList<>();
+            List<String> references = new ArrayList<>();
+
+            StringBuilder text = new StringBuilder();
+            int position = 0;
+            while (position < raw.length()) {
+                int start = raw.indexOf(PREFIX, position);
+                if (start < 0) {
+                    break;
+                }
+
+                if (start > 0 && raw.charAt(start - 1) == ESCAPE) {
+                    text.append(raw, position, start - 1).append(PREFIX);
+                    position = start + PREFIX.length();
+                    continue;
+                }
+
+                int end = raw.indexOf(SUFFIX, start + PREFIX.length());
+                if (end < 0) {
+                    break;
+                }
+
+                text.append(raw, position, start);
+                texts.add(text.toString());
+                text.setLength(0);
+                references.add(raw.substring(start + PREFIX.length(), end));
+                position = end + 1;
+            }
+            text.append(raw, position, raw.length());
+            texts.add(text.toString());
+
+            return new Template(raw, texts.toArray(new String[0]),
+                references.toArray(new String[0]));
+        }
+
+        /**
+         * 判断是否由给定原始值编译而来。
+         *
+         * @param raw 原始值。
+         * @return 是否由给定原始值编译而来。
+         */
+        boolean matches(String raw) {
+            return this.raw == raw || this.raw.equals(raw);
+        }
+
+    }
+
+    /**
+     * 替换结果。
+     */
+    private static final class Resolved {
+
+        /**
+         * 原始值。
+         */
+        final String raw;
+
+        /**
+         * 替换变量后的值。
+         */
+        final String value;
+
+        /**
+         * 直接或间接引用的配置项键。
+         */
+        private final String[] keys;
+
+        /**
+         * 替换时引用的配置项的原始值，配置项不存在时为null。
+         */
+        private final String[] raws;
+
+        /**
+         * 替换结果构造函数。
+         *
+         * @param raw          原始值。
+         * @param value        替换变量后的值。
+         * @param dependencies 直接或间接引用的配置项键到替换时的原始值。
+         */
+        Resolved(String raw, String value, Map<String, String> dependencies) {
+            this.raw = raw;
+            this.value = value;
+            this.keys = new String[dependencies.size()];
+            this.raws = new String[dependencies.size()];
+
+            int i = 0;
+            for (Map.Entry<String, String> entry : dependencies.entrySet()) {
+                keys[i] = entry.getKey();
+                raws[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        /**
+         * 判断是否由给定原始值替换而来，且引用的配置项在快照中都没有改变。
+         *
+         * @param snapshot 配置项快照。
+         * @param raw      原始值。
+         * @return 替换结果在快照中是否有效。
+         */
+        boolean matches(Snapshot snapshot, String raw) {
+            if (!same(this.raw, raw)) {
+                return false;
+            }
+
+            for (int i = 0; i < keys.length; i++) {
+                if (!same(raws[i], snapshot.get(keys[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 将引用的配置项加入外层配置项的引用。
+         *
+         * @param dependencies 外层配置项引用的配置项键到原始值。
+         */
+        void addDependencies(Map<String, String> dependencies) {
+            for (int i = 0; i < keys.length; i++) {
+                dependencies.put(keys[i], raws[i]);
+            }
+        }
+
+        /**
+         * 判断两个原始值是否相同。
+         *
+         * @param a 原始值，可以为null。
+         * @param b 原始值，可以为null。
+         * @return 是否相同。
+         */
+        private static boolean same(String a, String b) {
+            return a == b || a != null && a.equals(b);
+        }
+
+    }
+
+    /**
+     * 替换上下文。
+     */
+    private static final class Resolution {
+
+        /**
+         * 读取的配置项快照。
+         */
+        final Snapshot snapshot;
+
+        /**
+         * 正在替换的配置项键。
+         */
+        final List<String> path = new ArrayList<>();
+
+        /**
+         * 当前配置项的替换结果是否可以缓存。
+         */
+        boolean cacheable = true;
+
+        /**
+         * 当前配置项直接或间接引用的配置项键到原始值。
+         */
+        Map<String, String> dependencies = new HashMap<>();
+
+        /**
+         * 替换上下文构造函数。
+         *
+         * @param snapshot 读取的配置项快照。
+         */
+        Resolution(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+    }
+
+}
@@ -0,0 +1,390 @@
+package thesallab.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 紧凑的只读配置项映射。
+ * <p>
+ * 配置项键与去重后的配置项值以UTF-8编码连续保存在两个字节数组中，
+ * 每个配置项只占用几个整数的索引，不再为每个配置项保存映射节点与字符串对象。
+ * 查找时直接比较字符与字节，不创建字符串；配置项值的字符串在第一次读取时创建，
+ * 此后重复使用，从未读取的配置项值不会创建字符串。
+ *
+ * @author Zhang, Yin
+ */
+final class PackedMap {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 配置项键的UTF-8编码。
+     */
+    private final byte[] keys;
+
+    /**
+     * 每个配置项键在编码中的起始位置，最后一个元素为编码长度。
+     */
+    private final int[] keyOffsets;
+
+    /**
+     * 每个配置项键的哈希值。
+     */
+    private final int[] hashes;
+
+    /**
+     * 每个配置项的值编号。
+     */
+    private final int[] valueIds;
+
+    /**
+     * 去重后的配置项值的UTF-8编码。
+     */
+    private final byte[] values;
+
+    /**
+     * 每个配置项值在编码中的起始位置，最后一个元素为编码长度。
+     */
+    private final int[] valueOffsets;
+
+    /**
+     * 已创建的配置项值字符串。字符串不可变，并发创建时只会重复创建，不会出错。
+     */
+    private final String[] strings;
+
+    /**
+     * 开放寻址的哈希表，元素为配置项编号加一，0表示空位。
+     */
+    private final int[] slots;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 构造紧凑映射。
+     *
+     * @param entries 配置项，值不能为null。
+     * @return 紧凑映射。
+     */
+    static PackedMap of(Map<String, String> entries) {
+        int size = entries.size();
+        Packer keys = new Packer(size);
+        Packer values = new Packer(16);
+        Map<String, Integer> ids = new HashMap<>();
+        int[] hashes = new int[size];
+        int[] valueIds = new int[size];
+
+        int index = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            hashes[index] = entry.getKey().hashCode();
+            keys.add(entry.getKey());
+            valueIds[index] = ids.computeIfAbsent(entry.getValue(), values::add);
+            index++;
+        }
+
+        return new PackedMap(keys.bytes(), keys.offsets(), hashes, valueIds,
+            values.bytes(), values.offsets());
+    }
+
+    /**
+     * 获得配置项值。
+     *
+     * @param key 配置项键。
+     * @return 配置项值，配置项不存在时返回null。
+     */
+    String get(String key) {
+        int index = find(key);
+        return index < 0 ? null : value(valueIds[index]);
+    }
+
+    /**
+     * 判断配置项是否存在，不创建配置项值字符串。
+     *
+     * @param key 配置项键。
+     * @return 配置项是否存在。
+     */
+    boolean contains(String key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * 判断配置项是否存在且值与给定值相同，不创建配置项值字符串。
+     *
+     * @param key   配置项键。
+     * @param value 配置项值。
+     * @return 配置项是否存在且值相同。
+     */
+    boolean contains(String key, String value) {
+        int index = find(key);
+        if (index < 0) {
+            return false;
+        }
+
+        int id = valueIds[index];
+        return matches(values, valueOffsets[id], valueOffsets[id + 1], value);
+    }
+
+    /**
+     * 遍历配置项。遍历时创建的字符串不会保存，遍历不增加映射占用的内存。
+     *
+     * @param action 对每个配置项执行的操作。
+     */
+    void forEach(BiConsumer<String, String> action) {
+        for (int i = 0; i < hashes.length; i++) {
+            int id = valueIds[i];
+            String value = strings[id];
+            action.accept(decode(keys, keyOffsets, i),
+                value != null ? value : decode(values, valueOffsets, id));
+        }
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 紧凑映射构造函数。
+     *
+     * @param keys         配置项键的UTF-8编码。
+     * @param keyOffsets   每个配置项键的起始位置。
+     * @param hashes       每个配置项键的哈希值。
+     * @param valueIds     每个配置项的值编号。
+     * @param values       去重后的配置项值的UTF-8编码。
+     * @param valueOffsets 每个配置项值的起始位置。
+     */
+    private PackedMap(byte[] keys, int[] keyOffsets, int[] hashes,
+                      int[] valueIds, byte[] values, int[] valueOffsets) {
+        this.keys = keys;
+        this.keyOffsets = keyOffsets;
+        this.hashes = hashes;
+        this.valueIds = valueIds;
+        this.values = values;
+        this.valueOffsets = valueOffsets;
+        this.strings = new String[valueOffsets.length - 1];
+
+        this.slots = new int[
+            Integer.highestOneBit(Math.max(2, hashes.length * 2 - 1)) << 1];
+        int mask = slots.length - 1;
+        for (int index = 0; index < hashes.length; index++) {
+            int i = spread(hashes[index]) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = index + 1;
+        }
+    }
+
+    /**
+     * 获得配置项值字符串，第一次读取时创建。
+     *
+     * @param id 值编号。
+     * @return 配置项值。
+     */
+    private String value(int id) {
+        String value = strings[id];
+        if (value == null) {
+            value = decode(values, valueOffsets, id);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    /**
+     * 查找配置项。
+     *
+     * @param key 配置项键。
+     * @return 配置项编号，配置项不存在时返回-1。
+     */
+    private int find(String key) {
+        int hash = key.hashCode();
+        int mask = slots.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return -1;
+            }
+
+            int index = slot - 1;
+            if (hashes[index] == hash && matches(keys, keyOffsets[index],
+                keyOffsets[index + 1], key)) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * 解码字符串。
+     *
+     * @param bytes   编码。
+     * @param offsets 每个字符串的起始位置。
+     * @param index   字符串编号。
+     * @return 字符串。
+     */
+    private static String decode(byte[] bytes, int[] offsets, int index) {
+        return new String(bytes, offsets[index],
+            offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 判断一段UTF-8编码是否与给定的字符串相同。
+     *
+     * @param bytes    编码。
+     * @param position 起始位置。
+     * @param end      结束位置，不包含。
+     * @param string   字符串。
+     * @return 是否相同。
+     */
+    private static boolean matches(byte[] bytes, int position, int end,
+                                   String string) {
+        int length = string.length();
+
+        int i = 0;
+        while (i < length) {
+            if (position >= end) {
+                return false;
+            }
+
+            int b = bytes[position];
+            if (b >= 0) {
+                if (string.charAt(i) != b) {
+                    return false;
+                }
+                position++;
+                i++;
+                continue;
+            }
+
+            int extra;
+            int codePoint;
+            if ((b & 0xe0) == 0xc0) {
+                extra = 1;
+                codePoint = b & 0x1f;
+            } else if ((b & 0xf0) == 0xe0) {
+                extra = 2;
+                codePoint = b & 0x0f;
+            } else {
+                extra = 3;
+                codePoint = b & 0x07;
+            }
+            if (end - position <= extra) {
+                return false;
+            }
+            for (int k = 1; k <= extra; k++) {
+                codePoint = (codePoint << 6) | (bytes[position + k] & 0x3f);
+            }
+            position += extra + 1;
+
+            if (Character.isSupplementaryCodePoint(codePoint)) {
+                if (i + 1 >= length ||
+                    string.charAt(i) != Character.highSurrogate(codePoint) ||
+                    string.charAt(i + 1) != Character.lowSurrogate(codePoint)) {
+                    return false;
+                }
+                i += 2;
+            } else {
+                if (string.charAt(i) != codePoint) {
+                    return false;
+                }
+                i++;
+            }
+        }
+
+        return position == end;
+    }
+
+    /**
+     * 打散哈希值的高位，减少开放寻址时的聚集。
+     *
+     * @param hash 哈希值。
+     * @return 打散后的哈希值。
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * 连续编码的字符串构造器。
+     */
+    private static final class Packer {
+
+        /**
+         * 编码。
+         */
+        private byte[] bytes = new byte[1024];
+
+        /**
+         * 编码长度。
+         */
+        private int length = 0;
+
+        /**
+         * 每个字符串的起始位置。
+         */
+        private int[] offsets;
+
+        /**
+         * 字符串数量。
+         */
+        private int count = 0;
+
+        /**
+         * 字符串构造器构造函数。
+         *
+         * @param capacity 预计的字符串数量。
+         */
+        Packer(int capacity) {
+            this.offsets = new int[capacity + 1];
+        }
+
+        /**
+         * 添加字符串。
+         *
+         * @param value 字符串。
+         * @return 字符串编号。
+         */
+        int add(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            if (encoded.length > Integer.MAX_VALUE - 8 - length) {
+                throw new ArgumentError(PackedMap.class, "of", "entries",
+                    "Config items exceed 2 GB");
+            }
+            if (length + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(
+                    Integer.MAX_VALUE - 8,
+                    Math.max(2L * bytes.length, length + encoded.length)));
+            }
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            length += encoded.length;
+
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+            }
+            offsets[++count] = length;
+            return count - 1;
+        }
+
+        /**
+         * 获得编码。
+         *
+         * @return 编码。
+         */
+        byte[] bytes() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        /**
+         * 获得每个字符串的起始位置。
+         *
+         * @return 起始位置，最后一个元素为编码长度。
+         */
+        int[] offsets() {
+            return Arrays.copyOf(offsets, count + 1);
+        }
+
+    }
+
+}
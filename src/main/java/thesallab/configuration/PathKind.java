@@ -0,0 +1,90 @@
+package thesallab.configuration;
+
+/**
+ * 配置项的路径语义，对应{@link Config}中的路径读取方法。
+ *
+ * @author Zhang, Yin
+ */
+public enum PathKind {
+
+    // **************** 公开变量
+
+    /**
+     * 不是路径。
+     */
+    NONE(null, null),
+
+    /**
+     * 文件夹路径，对应{@link Config#getFolder(String)}。
+     */
+    FOLDER("getFolder", null),
+
+    /**
+     * 用于读取的文件夹路径，对应{@link Config#getFolderForRead(String)}。
+     */
+    FOLDER_FOR_READ("getFolderForRead", null),
+
+    /**
+     * 用于写入的文件夹路径，对应{@link Config#getFolderForWrite(String)}。
+     */
+    FOLDER_FOR_WRITE("getFolderForWrite", null),
+
+    /**
+     * 用于读取的路径，对应{@link Config#getPathForRead(String)}与
+     * {@link Config#getPathArrayForRead(String)}。
+     */
+    PATH_FOR_READ("getPathForRead", "getPathArrayForRead"),
+
+    /**
+     * 用于写入的路径，对应{@link Config#getPathForWrite(String)}与
+     * {@link Config#getPathArrayForWrite(String)}。
+     */
+    PATH_FOR_WRITE("getPathForWrite", "getPathArrayForWrite");
+
+    // **************** 私有变量
+
+    /**
+     * 读取单个路径的方法名称。
+     */
+    private final String getter;
+
+    /**
+     * 读取路径数组的方法名称。
+     */
+    private final String arrayGetter;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 获得读取方法名称。
+     *
+     * @param type 值类型。
+     * @return 读取方法名称，该值类型不支持此路径语义时返回null。
+     */
+    public String getGetter(ValueType type) {
+        switch (type) {
+            case STRING:
+                return getter;
+            case STRING_ARRAY:
+                return arrayGetter;
+            default:
+                return null;
+        }
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 路径语义构造函数。
+     *
+     * @param getter      读取单个路径的方法名称。
+     * @param arrayGetter 读取路径数组的方法名称。
+     */
+    PathKind(String getter, String arrayGetter) {
+        this.getter = getter;
+        this.arrayGetter = arrayGetter;
+    }
+
+}
@@ -0,0 +1,472 @@
+package thesallab.configuration;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 不可变的配置项映射。
+ * <p>
+ * 以哈希数组映射前缀树（HAMT）实现。修改操作返回新映射，
+ * 新旧映射共享未改变的节点，只复制从根到被修改配置项的路径，
+ * 因此在同一个基础映射上派生出的大量映射只占用与差异配置项数量成正比的内存。
+ * 配置项值按引用比较，调用者可以用特定的字符串对象作为标记，
+ * 不会与内容相同的其他字符串混淆。
+ *
+ * @author Zhang, Yin
+ */
+final class PersistentMap {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 每层使用的哈希位数。
+     */
+    private static final int BITS = 5;
+
+    /**
+     * 每层哈希位掩码。
+     */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * 空映射。
+     */
+    private static final PersistentMap EMPTY =
+        new PersistentMap(new BitmapNode(null, 0, new Object[0]));
+
+    /**
+     * 根节点。
+     */
+    private final Node root;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 获得空映射。
+     *
+     * @return 空映射。
+     */
+    static PersistentMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 获得配置项值。
+     *
+     * @param key 配置项键。
+     * @return 配置项值，配置项不存在时返回null。
+     */
+    String get(String key) {
+        return root.get(0, hash(key), key);
+    }
+
+    /**
+     * 设置配置项值。
+     *
+     * @param key   配置项键。
+     * @param value 配置项值。
+     * @return 新映射，值为同一引用时返回当前映射。
+     */
+    PersistentMap put(String key, String value) {
+        Node node = root.put(null, 0, hash(key), key, value);
+        return node == root ? this : new PersistentMap(node);
+    }
+
+    /**
+     * 批量设置配置项值。批量设置过程中新建的节点直接修改，不再逐项复制。
+     *
+     * @param entries 配置项。
+     * @return 新映射。
+     */
+    PersistentMap putAll(Map<String, String> entries) {
+        Builder builder = new Builder(this);
+        entries.forEach(builder::put);
+        return builder.build();
+    }
+
+    /**
+     * 遍历配置项。
+     *
+     * @param action 对每个配置项执行的操作。
+     */
+    void forEach(BiConsumer<String, String> action) {
+        root.forEach(action);
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 映射构造函数。
+     *
+     * @param root 根节点。
+     */
+    private PersistentMap(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * 计算配置项键的哈希值。
+     *
+     * @param key 配置项键。
+     * @return 哈希值。
+     */
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 映射构造器。构造器新建的节点归构造器所有，可以直接修改。
+     */
+    private static final class Builder {
+
+        /**
+         * 节点所有者标记，构造完成后失效。
+         */
+        private Object owner = new Object();
+
+        /**
+         * 根节点。
+         */
+        private Node root;
+
+        /**
+         * 映射构造器构造函数。
+         *
+         * @param map 初始映射。
+         */
+        Builder(PersistentMap map) {
+            this.root = map.root;
+        }
+
+        /**
+         * 设置配置项值。
+         *
+         * @param key   配置项键。
+         * @param value 配置项值。
+         * @return 映射构造器。
+         */
+        Builder put(String key, String value) {
+            root = root.put(owner, 0, hash(key), key, value);
+            return this;
+        }
+
+        /**
+         * 构造映射。
+         *
+         * @return 映射。
+         */
+        PersistentMap build() {
+            owner = new Object();
+            return new PersistentMap(root);
+        }
+
+    }
+
+    /**
+     * 前缀树节点。
+     */
+    private abstract static class Node {
+
+        /**
+         * 所有者标记，非空且与修改者标记相同时允许直接修改。
+         */
+        final Object owner;
+
+        /**
+         * 节点构造函数。
+         *
+         * @param owner 所有者标记。
+         */
+        Node(Object owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * 获得配置项值。
+         *
+         * @param shift 当前层的哈希位移。
+         * @param hash  配置项键的哈希值。
+         * @param key   配置项键。
+         * @return 配置项值，配置项不存在时返回null。
+         */
+        abstract String get(int shift, int hash, String key);
+
+        /**
+         * 设置配置项值。
+         *
+         * @param owner 修改者标记，为null时复制所有被修改的节点。
+         * @param shift 当前层的哈希位移。
+         * @param hash  配置项键的哈希值。
+         * @param key   配置项键。
+         * @param value 配置项值。
+         * @return 修改后的节点，未修改时返回当前节点。
+         */
+        abstract Node put(Object owner, int shift, int hash, String key,
+                          String value);
+
+        /**
+         * 遍历配置项。
+         *
+         * @param action 对每个配置项执行的操作。
+         */
+        abstract void forEach(BiConsumer<String, String> action);
+
+        /**
+         * 判断是否可以直接修改当前节点。
+         *
+         * @param owner 修改者标记。
+         * @return 是否可以直接修改。
+         */
+        boolean editable(Object owner) {
+            return owner != null && owner == this.owner;
+        }
+
+    }
+
+    /**
+     * 按位图压缩的分支节点。每个配置项或子节点占用数组中的两个位置：
+     * 配置项为键与值，子节点为null与子节点。
+     */
+    private static final class BitmapNode extends Node {
+
+        /**
+         * 已占用的分支位图。
+         */
+        int bitmap;
+
+        /**
+         * 配置项与子节点数组。
+         */
+        Object[] array;
+
+        /**
+         * 分支节点构造函数。
+         *
+         * @param owner  所有者标记。
+         * @param bitmap 已占用的分支位图。
+         * @param array  配置项与子节点数组。
+         */
+        BitmapNode(Object owner, int bitmap, Object[] array) {
+            super(owner);
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        String get(int shift, int hash, String key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+
+            int index = index(bit);
+            Object k = array[index];
+            Object v = array[index + 1];
+            if (k == null) {
+                return ((Node) v).get(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? (String) v : null;
+        }
+
+        @Override
+        Node put(Object owner, int shift, int hash, String key,
+                 String value) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, index);
+                copy[index] = key;
+                copy[index + 1] = value;
+                System.arraycopy(array, index, copy, index + 2,
+                    array.length - index);
+
+                if (editable(owner)) {
+                    this.bitmap |= bit;
+                    this.array = copy;
+                    return this;
+                }
+                return new BitmapNode(owner, bitmap | bit, copy);
+            }
+
+            Object k = array[index];
+            Object v = array[index + 1];
+            if (k == null) {
+                Node child =
+                    ((Node) v).put(owner, shift + BITS, hash, key, value);
+                return child == v ? this : with(owner, index, null, child);
+            }
+            if (key.equals(k)) {
+                return value == v ? this :
+                    with(owner, index, key, value);
+            }
+
+            return with(owner, index, null,
+                branch(owner, shift + BITS, (String) k, (String) v, hash, key,
+                    value));
+        }
+
+        @Override
+        void forEach(BiConsumer<String, String> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept((String) array[i], (String) array[i + 1]);
+                }
+            }
+        }
+
+        /**
+         * 获得分支在数组中的位置。
+         *
+         * @param bit 分支位。
+         * @return 分支在数组中的位置。
+         */
+        private int index(int bit) {
+            return 2 * Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        /**
+         * 替换一个分支。
+         *
+         * @param owner 修改者标记。
+         * @param index 分支在数组中的位置。
+         * @param key   配置项键，子节点为null。
+         * @param value 配置项值或子节点。
+         * @return 修改后的节点。
+         */
+        private Node with(Object owner, int index, String key, Object value) {
+            if (editable(owner)) {
+                array[index] = key;
+                array[index + 1] = value;
+                return this;
+            }
+
+            Object[] copy = array.clone();
+            copy[index] = key;
+            copy[index + 1] = value;
+            return new BitmapNode(owner, bitmap, copy);
+        }
+
+        /**
+         * 为落在同一分支上的两个配置项新建子节点。
+         *
+         * @param owner  修改者标记。
+         * @param shift  子节点的哈希位移。
+         * @param key1   已有配置项键。
+         * @param value1 已有配置项值。
+         * @param hash2  新配置项键的哈希值。
+         * @param key2   新配置项键。
+         * @param value2 新配置项值。
+         * @return 子节点。
+         */
+        private static Node branch(Object owner, int shift, String key1,
+                                   String value1, int hash2, String key2,
+                                   String value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(owner, hash1,
+                    new Object[] {key1, value1, key2, value2});
+            }
+
+            return new BitmapNode(owner, 0, new Object[0])
+                .put(owner, shift, hash1, key1, value1)
+                .put(owner, shift, hash2, key2, value2);
+        }
+
+    }
+
+    /**
+     * 哈希值完全相同的配置项节点。
+     */
+    private static final class CollisionNode extends Node {
+
+        /**
+         * 哈希值。
+         */
+        final int hash;
+
+        /**
+         * 配置项键与值交替排列的数组。
+         */
+        Object[] array;
+
+        /**
+         * 冲突节点构造函数。
+         *
+         * @param owner 所有者标记。
+         * @param hash  哈希值。
+         * @param array 配置项键与值交替排列的数组。
+         */
+        CollisionNode(Object owner, int hash, Object[] array) {
+            super(owner);
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        String get(int shift, int hash, String key) {
+            if (hash != this.hash) {
+                return null;
+            }
+
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return (String) array[i + 1];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(Object owner, int shift, int hash, String key,
+                 String value) {
+            if (hash != this.hash) {
+                return new BitmapNode(owner,
+                    1 << ((this.hash >>> shift) & MASK),
+                    new Object[] {null, this})
+                    .put(owner, shift, hash, key, value);
+            }
+
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    if (value == array[i + 1]) {
+                        return this;
+                    }
+
+                    Object[] copy = editable(owner) ? array : array.clone();
+                    copy[i + 1] = value;
+                    return editable(owner) ? this :
+                        new CollisionNode(owner, hash, copy);
+                }
+            }
+
+            Object[] copy = new Object[array.length + 2];
+            System.arraycopy(array, 0, copy, 0, array.length);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+
+            if (editable(owner)) {
+                this.array = copy;
+                return this;
+            }
+            return new CollisionNode(owner, hash, copy);
+        }
+
+        @Override
+        void forEach(BiConsumer<String, String> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept((String) array[i], (String) array[i + 1]);
+            }
+        }
+
+    }
+
+}
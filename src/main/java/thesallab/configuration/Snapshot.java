@@ -0,0 +1,149 @@
+package thesallab.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 配置项快照。
+ * <p>
+ * 由只读的基础配置项与不可变的修改记录组成。基础配置项在读取配置文件后不再改变，
+ * 以{@link PackedMap}紧凑保存，可以在派生的快照之间直接共享；修改记录保存在{@link PersistentMap}中，
+ * 派生快照与原快照共享未改变的节点。读取时先查修改记录再查基础配置项，
+ * 修改记录通常很小，不会明显增加读取开销。
+ *
+ * @author Zhang, Yin
+ */
+final class Snapshot {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 已删除配置项的标记，按引用比较。
+     */
+    private static final String REMOVED = new String("");
+
+    /**
+     * 基础配置项。
+     */
+    private final PackedMap base;
+
+    /**
+     * 修改记录。
+     */
+    private final PersistentMap changes;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 配置项快照构造函数。
+     *
+     * @param base 基础配置项，值不能为null。
+     */
+    Snapshot(Map<String, String> base) {
+        this(PackedMap.of(base), PersistentMap.empty());
+    }
+
+    /**
+     * 获得配置项值。
+     *
+     * @param key 配置项键。
+     * @return 配置项值，配置项不存在时返回null。
+     */
+    String get(String key) {
+        String value = changes.get(key);
+        if (value == null) {
+            return base.get(key);
+        }
+        return value == REMOVED ? null : value;
+    }
+
+    /**
+     * 判断配置项是否存在。不创建基础配置项的值字符串。
+     *
+     * @param key 配置项键。
+     * @return 配置项是否存在。
+     */
+    boolean contains(String key) {
+        String value = changes.get(key);
+        if (value == null) {
+            return base.contains(key);
+        }
+        return value != REMOVED;
+    }
+
+    /**
+     * 判断配置项是否存在且值与给定值相同。不创建基础配置项的值字符串。
+     *
+     * @param key   配置项键。
+     * @param value 配置项值。
+     * @return 配置项是否存在且值相同。
+     */
+    boolean contains(String key, String value) {
+        String change = changes.get(key);
+        if (change == null) {
+            return base.contains(key, value);
+        }
+        return change != REMOVED && change.equals(value);
+    }
+
+    /**
+     * 设置配置项值。
+     *
+     * @param key   配置项键。
+     * @param value 配置项值，为null时删除配置项。
+     * @return 新快照。
+     */
+    Snapshot with(String key, String value) {
+        PersistentMap next = changes.put(key, value == null ? REMOVED : value);
+        return next == changes ? this : new Snapshot(base, next);
+    }
+
+    /**
+     * 批量设置配置项值。
+     *
+     * @param entries 配置项，值为null时删除配置项。
+     * @return 新快照。
+     */
+    Snapshot withAll(Map<String, String> entries) {
+        Map<String, String> values = new HashMap<>(entries);
+        values.replaceAll((k, v) -> v == null ? REMOVED : v);
+        return new Snapshot(base, changes.putAll(values));
+    }
+
+    /**
+     * 遍历配置项。
+     *
+     * @param action 对每个配置项执行的操作。
+     */
+    void forEach(BiConsumer<String, String> action) {
+        base.forEach((k, v) -> {
+            if (changes.get(k) == null) {
+                action.accept(k, v);
+            }
+        });
+        changes.forEach((k, v) -> {
+            if (v != REMOVED) {
+                action.accept(k, v);
+            }
+        });
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 配置项快照构造函数。
+     *
+     * @param base    基础配置项。
+     * @param changes 修改记录。
+     */
+    private Snapshot(PackedMap base, PersistentMap changes) {
+        this.base = base;
+        this.changes = changes;
+    }
+
+}
@@ -0,0 +1,159 @@
+package thesallab.configuration;
+
+import java.util.Map;
+
+/**
+ * 类型化的配置项键。
+ * <p>
+ * 每个配置信息实例分别记住最近一次读取时的配置项快照与解码结果，
+ * 快照未改变时直接返回结果，不再查找配置项、替换变量或解码。
+ * 结果保存在配置信息实例中，多个租户轮流读取同一个键时互不覆盖。
+ * 引用系统属性的配置项不记住结果，每次重新读取。
+ * 由{@link ConfigAccessorProcessor}生成的访问类使用本类读取配置项。
+ *
+ * @param <T> 配置项值的Java类型，基本类型使用对应的包装类型。
+ * @author Zhang, Yin
+ */
+public final class TypedKey<T> {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 值类型。
+     */
+    private final ValueType type;
+
+    /**
+     * 配置项键。
+     */
+    private final String key;
+
+    /**
+     * 默认值，为null时配置项必须存在。
+     */
+    private final T defaultValue;
+
+    // **************** 继承方法
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+    // **************** 公开方法
+
+    /**
+     * 必须存在的配置项键构造函数。
+     *
+     * @param type 值类型。
+     * @param key  配置项键。
+     */
+    public TypedKey(ValueType type, String key) {
+        this(type, key, null);
+    }
+
+    /**
+     * 有默认值的配置项键构造函数。
+     *
+     * @param type         值类型。
+     * @param key          配置项键。
+     * @param defaultValue 配置项不存在时返回的默认值，为null时配置项必须存在。
+     */
+    public TypedKey(ValueType type, String key, T defaultValue) {
+        if (type == null) {
+            throw new ArgumentError(TypedKey.class, "type", "null");
+        }
+        if (key == null || "".equals(key)) {
+            throw new ArgumentError(TypedKey.class, "key", "empty");
+        }
+
+        this.type = type;
+        this.key = key;
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * 从默认配置信息实例读取配置项值。
+     *
+     * @return 配置项值。
+     */
+    public T get() {
+        return get(Config.instance());
+    }
+
+    /**
+     * 从配置信息实例读取配置项值。
+     *
+     * @param instance 配置信息实例。
+     * @return 配置项值。
+     */
+    @SuppressWarnings("unchecked")
+    public T get(ConfigInstance instance) {
+        Snapshot snapshot = instance.snapshot();
+        Map<TypedKey<?>, Object> values = instance.typedValues();
+
+        Cached current = (Cached) values.get(this);
+        if (current == null || current.snapshot != snapshot) {
+            Object value = instance.read(type, key, defaultValue);
+            if (!instance.isStable(snapshot, key)) {
+                return (T) value;
+            }
+
+            current = new Cached(snapshot, value);
+            values.put(this, current);
+        }
+
+        return (T) type.copy(current.value);
+    }
+
+    /**
+     * 获得值类型。
+     *
+     * @return 值类型。
+     */
+    public ValueType getType() {
+        return type;
+    }
+
+    /**
+     * 获得配置项键。
+     *
+     * @return 配置项键。
+     */
+    public String getKey() {
+        return key;
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 读取结果。
+     */
+    private static final class Cached {
+
+        /**
+         * 读取时的配置项快照。
+         */
+        final Snapshot snapshot;
+
+        /**
+         * 解码后的配置项值。
+         */
+        final Object value;
+
+        /**
+         * 读取结果构造函数。
+         *
+         * @param snapshot 读取时的配置项快照。
+         * @param value    解码后的配置项值。
+         */
+        Cached(Snapshot snapshot, Object value) {
+            this.snapshot = snapshot;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,318 @@
+package thesallab.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.stream.StreamSupport;
+
+/**
+ * 配置项值类型。
+ *
+ * @author Zhang, Yin
+ */
+public enum ValueType {
+
+    // **************** 公开变量
+
+    /**
+     * 字符串。
+     */
+    STRING("java.lang.String", null) {
+        @Override
+        Object parse(String value) {
+            return value;
+        }
+    },
+
+    /**
+     * 布尔值。
+     */
+    BOOLEAN("boolean", null) {
+        @Override
+        Object parse(String value) {
+            return Boolean.parseBoolean(value);
+        }
+    },
+
+    /**
+     * 整数。
+     */
+    INT("int", "should be a int.") {
+        @Override
+        Object parse(String value) {
+            return Integer.parseInt(value);
+        }
+    },
+
+    /**
+     * 长整数。
+     */
+    LONG("long", "should be a long.") {
+        @Override
+        Object parse(String value) {
+            return Long.parseLong(value);
+        }
+    },
+
+    /**
+     * 浮点数。
+     */
+    DOUBLE("double", "should be a double.") {
+        @Override
+        Object parse(String value) {
+            return Double.parseDouble(value);
+        }
+    },
+
+    /**
+     * 浮点数组。
+     */
+    DOUBLE_ARRAY("double[]", "should be a json array of double.") {
+        @Override
+        Object parse(String value) throws Exception {
+            ArrayNode array = readArray(value);
+
+            return StreamSupport.stream(array.spliterator(), false)
+                .map(DoubleNode.class::cast).mapToDouble(DoubleNode::asDouble)
+                .toArray();
+        }
+
+        @Override
+        Object copy(Object value) {
+            return ((double[]) value).clone();
+        }
+    },
+
+    /**
+     * 二维浮点数组。
+     */
+    DOUBLE_ARRAYS("double[][]", "should be a json array of double array.") {
+        @Override
+        Object parse(String value) throws Exception {
+            ArrayNode arrays = readArray(value);
+
+            return StreamSupport.stream(arrays.spliterator(), false)
+                .map(ArrayNode.class::cast).map(
+                    p -> StreamSupport.stream(p.spliterator(), false)
+                        .map(DoubleNode.class::cast)
+                        .mapToDouble(DoubleNode::asDouble).toArray())
+                .collect(ArrayList<double[]>::new, ArrayList::add,
+                    ArrayList::addAll).toArray(new double[0][]);
+        }
+
+        @Override
+        Object copy(Object value) {
+            return Arrays.stream((double[][]) value).map(double[]::clone)
+                .toArray(double[][]::new);
+        }
+    },
+
+    /**
+     * 整数数组。
+     */
+    INT_ARRAY("int[]", "should be a json array of int.") {
+        @Override
+        Object parse(String value) throws Exception {
+            ArrayNode array =
+                readArray(value);
+
+            return StreamSupport.stream(array.spliterator(), false)
+                .map(IntNode.class::cast).mapToInt(IntNode::asInt).toArray();
+        }
+
+        @Override
+        Object copy(Object value) {
+            return ((int[]) value).clone();
+        }
+    },
+
+    /**
+     * 二维整数数组。
+     */
+    INT_ARRAYS("int[][]", "should be a json array of int array.") {
+        @Override
+        Object parse(String value) throws Exception {
+            ArrayNode arrays = readArray(value);
+
+            return StreamSupport.stream(arrays.spliterator(), false)
+                .map(ArrayNode.class::cast).map(
+                    p -> StreamSupport.stream(p.spliterator(), false)
+                        .map(IntNode.class::cast).mapToInt(IntNode::asInt)
+                        .toArray())
+                .collect(ArrayList<int[]>::new, ArrayList::add,
+                    ArrayList::addAll).toArray(new int[0][]);
+        }
+
+        @Override
+        Object copy(Object value) {
+            return Arrays.stream((int[][]) value).map(int[]::clone)
+                .toArray(int[][]::new);
+        }
+    },
+
+    /**
+     * 字符串数组。
+     */
+    STRING_ARRAY("java.lang.String[]", "should be a json array of string.") {
+        @Override
+        Object parse(String value) throws Exception {
+            ArrayNode array =
+                readArray(value);
+
+            return StreamSupport.stream(array.spliterator(), false)
+                .map(JsonNode::asText).toArray(String[]::new);
+        }
+
+        @Override
+        Object copy(Object value) {
+            return ((String[]) value).clone();
+        }
+    },
+
+    /**
+     * 二维字符串数组。
+     */
+    STRING_ARRAYS("java.lang.String[][]",
+        "should be a json array of string array.") {
+        @Override
+        Object parse(String value) throws Exception {
+            ArrayNode arrays = readArray(value);
+
+            return StreamSupport.stream(arrays.spliterator(), false)
+                .map(ArrayNode.class::cast).map(
+                    p -> StreamSupport.stream(p.spliterator(), false)
+                        .map(JsonNode::asText).toArray(String[]::new))
+                .collect(ArrayList<String[]>::new, ArrayList::add,
+                    ArrayList::addAll).toArray(new String[0][]);
+        }
+
+        @Override
+        Object copy(Object value) {
+            return Arrays.stream((String[][]) value).map(String[]::clone)
+                .toArray(String[][]::new);
+        }
+    },
+
+    /**
+     * 时间戳。
+     */
+    TIMESTAMP("java.sql.Timestamp", "should be in format yyyyMMddhhmmss") {
+        @Override
+        Object parse(String value) throws Exception {
+            SimpleDateFormat format = new SimpleDateFormat("yyyyMMddhhmmss");
+            Date date = format.parse(value);
+            return new Timestamp(date.getTime());
+        }
+
+        @Override
+        Object copy(Object value) {
+            return ((Timestamp) value).clone();
+        }
+    };
+
+    // **************** 私有变量
+
+    /**
+     * 对应的Java类型名称。
+     */
+    private final String typeName;
+
+    /**
+     * 格式错误时的异常信息，为null时不会出现格式错误。
+     */
+    private final String message;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 获得对应的Java类型名称。
+     *
+     * @return Java类型名称，如<code>int[]</code>。
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * 解码配置项值。
+     *
+     * @param key   配置项键。
+     * @param value 配置项值。
+     * @return 解码后的值。
+     * @throws ConfigItemException 配置项值格式错误。
+     */
+    Object decode(String key, String value) {
+        try {
+            return parse(value);
+        } catch (Exception e) {
+            throw new ConfigItemException(key, message, e);
+        }
+    }
+
+    /**
+     * 复制解码后的值，避免调用者修改缓存中的值。不可变的值直接返回。
+     *
+     * @param value 解码后的值。
+     * @return 值的副本。
+     */
+    Object copy(Object value) {
+        return value;
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 配置项值类型构造函数。
+     *
+     * @param typeName 对应的Java类型名称。
+     * @param message  格式错误时的异常信息。
+     */
+    ValueType(String typeName, String message) {
+        this.typeName = typeName;
+        this.message = message;
+    }
+
+    /**
+     * 解析配置项值。
+     *
+     * @param value 配置项值。
+     * @return 解析后的值。
+     * @throws Exception 配置项值格式错误。
+     */
+    abstract Object parse(String value) throws Exception;
+
+    /**
+     * 将配置项值解析为JSON数组。
+     *
+     * @param value 配置项值。
+     * @return JSON数组。
+     * @throws Exception 配置项值不是JSON数组。
+     */
+    private static ArrayNode readArray(String value) throws Exception {
+        return (ArrayNode) Json.mapper.readTree(value);
+    }
+
+    /**
+     * 共享的JSON解析器，第一次解析数组时才创建。
+     * 注解处理器加载本类时不需要Jackson。
+     */
+    private static final class Json {
+
+        /**
+         * JSON解析器。ObjectMapper在配置完成后是线程安全的。
+         */
+        static final ObjectMapper mapper = new ObjectMapper();
+
+    }
+
+}
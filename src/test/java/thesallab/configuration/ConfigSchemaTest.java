@@ -0,0 +1,98 @@
+package thesallab.configuration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link ConfigSchema}测试。
+ *
+ * @author Zhang, Yin
+ */
+public class ConfigSchemaTest {
+
+    // **************** 公开变量
+
+    /**
+     * 临时文件夹。
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // **************** 私有变量
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * NaN不在任何范围内，无穷大只在包含它的范围内。
+     */
+    @Test
+    public void ranges() {
+        ConfigInstance instance = ConfigInstance.of(InterpolatorTest.entries(
+            "nan", "NaN", "negative", "-Infinity", "infinity", "Infinity",
+            "bounded", "Infinity", "inside", "[1, 2]"));
+
+        ConfigSchema schema = new ConfigSchema();
+        schema.add(ValueType.DOUBLE, "nan").range(Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY);
+        schema.add(ValueType.DOUBLE, "negative").range(0, 10);
+        schema.add(ValueType.DOUBLE, "infinity").range(0,
+            Double.POSITIVE_INFINITY);
+        schema.add(ValueType.DOUBLE, "bounded").range(0, 1e300);
+        schema.add(ValueType.INT_ARRAY, "inside").range(1, 2);
+
+        List<ConfigItemException> problems = schema.validate(instance);
+        assertEquals(3, problems.size());
+        String[] keys = {"nan", "negative", "bounded"};
+        for (int i = 0; i < keys.length; i++) {
+            String message = problems.get(i).getMessage();
+            assertTrue(message, message.contains(keys[i] + ": should be in " +
+                "range"));
+        }
+
+        try {
+            schema.add(ValueType.DOUBLE, "x").range(Double.NaN, 1);
+            fail("NaN bound accepted");
+        } catch (ArgumentError e) {
+            // 预期的异常。
+        }
+    }
+
+    /**
+     * 路径数组中所有不存在的路径都报告在同一个配置项异常中。
+     *
+     * @throws Exception 创建临时文件失败。
+     */
+    @Test
+    public void reportsEveryBadPath() throws Exception {
+        String existing = folder.newFile("existing").getPath();
+        String first = new File(folder.getRoot(), "first").getPath();
+        String second = new File(folder.getRoot(), "second").getPath();
+        ConfigInstance instance = ConfigInstance.of(InterpolatorTest.entries(
+            "paths", "[\"" + first + "\", \"" + existing + "\", \"" + second +
+                "\"]"));
+
+        ConfigSchema schema = new ConfigSchema();
+        schema.add(ValueType.STRING_ARRAY, "paths")
+            .path(PathKind.PATH_FOR_READ);
+
+        List<ConfigItemException> problems = schema.validate(instance);
+        assertEquals(1, problems.size());
+        String message = problems.get(0).getMessage();
+        assertTrue(message, message.contains("Path does not exist: " + first));
+        assertTrue(message, message.contains("Path does not exist: " + second));
+        assertTrue(message, !message.contains(existing));
+    }
+
+    // **************** 私有方法
+
+}
@@ -0,0 +1,141 @@
+package thesallab.configuration;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link ConfigTransaction}与{@link ConfigInstance#setAll(Map)}测试。
+ *
+ * @author Zhang, Yin
+ */
+public class ConfigTransactionTest {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 并发测试中每个写入者的批量修改次数。
+     */
+    private static final int BATCHES = 20000;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 修改在提交前不可见，每个批量修改只能提交一次。
+     */
+    @Test
+    public void commit() {
+        ConfigInstance instance = ConfigInstance.of(
+            InterpolatorTest.entries("a", "1", "b", "2"));
+
+        ConfigTransaction transaction = instance.transaction()
+            .set("a", "3").set("a", "4").remove("b").set("c", "5");
+        assertEquals("1", instance.get("a"));
+        assertEquals("2", instance.get("b"));
+
+        transaction.commit();
+        assertEquals("4", instance.get("a"));
+        assertNull(instance.get("b"));
+        assertEquals("5", instance.get("c"));
+
+        try {
+            transaction.commit();
+            fail("Committed twice");
+        } catch (ArgumentError e) {
+            // 预期的异常。
+        }
+        try {
+            transaction.set("a", "6");
+            fail("Changed after commit");
+        } catch (ArgumentError e) {
+            // 预期的异常。
+        }
+    }
+
+    /**
+     * 并发读取者不会看到只应用了一部分的批量修改，
+     * 包括通过变量替换结果缓存读取的配置项。
+     *
+     * @throws InterruptedException 等待被中断。
+     */
+    @Test
+    public void setAllIsAtomic() throws InterruptedException {
+        ConfigInstance instance = ConfigInstance.of(InterpolatorTest.entries(
+            "a", "0", "b", "0", "c", "${a}-${b}", "d", "${c}/${b}"));
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+        AtomicInteger version = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < BATCHES; j++) {
+                    String v = Integer.toString(version.incrementAndGet());
+                    Map<String, String> changes = new HashMap<>();
+                    changes.put("a", v);
+                    changes.put("b", v);
+                    changes.put("other" + j % 100, v);
+                    instance.setAll(changes);
+                }
+            }));
+        }
+        for (int i = 0; i < 2; i++) {
+            threads.add(new Thread(() -> {
+                while (!stop.get()) {
+                    String c = instance.get("c");
+                    String d = instance.get("d");
+                    if (!consistent(c) || !consistent(d)) {
+                        torn.compareAndSet(null, c + " " + d);
+                    }
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (Thread thread : threads.subList(0, 2)) {
+            thread.join();
+        }
+        stop.set(true);
+        for (Thread thread : threads.subList(2, 4)) {
+            thread.join();
+        }
+
+        assertNull(torn.get());
+        String a = instance.get("a");
+        assertEquals(a + "-" + a, instance.get("c"));
+        assertEquals(a + "-" + a + "/" + a, instance.get("d"));
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 判断替换结果中引用的a与b是否来自同一次批量修改。
+     *
+     * @param value 替换结果。
+     * @return 所有引用的值是否相同。
+     */
+    private static boolean consistent(String value) {
+        String[] parts = value.split("[-/]");
+        for (String part : parts) {
+            if (!part.equals(parts[0])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,219 @@
+package thesallab.configuration;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link Interpolator}测试。
+ *
+ * @author Zhang, Yin
+ */
+public class InterpolatorTest {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 替换直接与间接引用。
+     */
+    @Test
+    public void references() {
+        ConfigInstance instance = ConfigInstance.of(entries(
+            "root", "/data", "input", "${root}/input", "file",
+            "${input}/${name}.txt", "name", "a", "plain", "no references"));
+
+        assertEquals("/data/input/a.txt", instance.get("file"));
+        assertEquals("/data/input", instance.get("input"));
+        assertEquals("no references", instance.get("plain"));
+        assertNull(instance.get("missing"));
+    }
+
+    /**
+     * 无法解析的引用与不完整的引用原样保留。
+     */
+    @Test
+    public void unresolvedReferences() {
+        ConfigInstance instance = ConfigInstance.of(entries(
+            "a", "${missing}/x", "b", "${a", "c", "${}"));
+
+        assertEquals("${missing}/x", instance.get("a"));
+        assertEquals("${a", instance.get("b"));
+        assertEquals("${}", instance.get("c"));
+    }
+
+    /**
+     * <code>$${...}</code>表示不替换的<code>${...}</code>。
+     */
+    @Test
+    public void escapes() {
+        ConfigInstance instance = ConfigInstance.of(entries(
+            "a", "1", "b", "$${a}", "c", "$${a}-${a}", "d", "$$${a}"));
+
+        assertEquals("${a}", instance.get("b"));
+        assertEquals("${a}-1", instance.get("c"));
+        assertEquals("$${a}", instance.get("d"));
+    }
+
+    /**
+     * 系统属性每次读取，环境变量按名称读取。
+     */
+    @Test
+    public void systemPropertiesAndEnvironment() {
+        String property = "thesallab.configuration.test." + System.nanoTime();
+        ConfigInstance instance = ConfigInstance.of(entries(
+            "sys", "${sys:" + property + "}", "outer", "[${sys}]"));
+
+        assertEquals("${sys:" + property + "}", instance.get("sys"));
+        try {
+            System.setProperty(property, "1");
+            assertEquals("[1]", instance.get("outer"));
+            System.setProperty(property, "2");
+            assertEquals("[2]", instance.get("outer"));
+        } finally {
+            System.clearProperty(property);
+        }
+
+        Map<String, String> environment = System.getenv();
+        Assume.assumeFalse(environment.isEmpty());
+        String name = environment.keySet().iterator().next();
+        assertEquals(environment.get(name), ConfigInstance.of(entries(
+            "env", "${env:" + name + "}")).get("env"));
+    }
+
+    /**
+     * 循环引用报告完整的引用链。
+     */
+    @Test
+    public void cycles() {
+        ConfigInstance instance = ConfigInstance.of(entries(
+            "a", "${b}", "b", "x${c}", "c", "${a}", "self", "${self}",
+            "outside", "${a}"));
+
+        assertCycle(instance, "a", "a -> b -> c -> a");
+        assertCycle(instance, "self", "self -> self");
+        assertCycle(instance, "outside", "a -> b -> c -> a");
+
+        instance.set("c", "end");
+        assertEquals("xend", instance.get("a"));
+        assertEquals("xend", instance.get("outside"));
+    }
+
+    /**
+     * 修改配置项后引用它的配置项得到新值，其他配置项不受影响。
+     */
+    @Test
+    public void invalidatesDependents() {
+        ConfigInstance instance = ConfigInstance.of(entries(
+            "a", "1", "b", "${a}", "c", "${b}-${a}", "d", "${other}",
+            "other", "o"));
+
+        assertEquals("1-1", instance.get("c"));
+        assertEquals("o", instance.get("d"));
+
+        instance.set("a", "2");
+        assertEquals("2", instance.get("b"));
+        assertEquals("2-2", instance.get("c"));
+
+        instance.set("b", "b");
+        assertEquals("b-2", instance.get("c"));
+
+        instance.set("a", null);
+        assertEquals("b-${a}", instance.get("c"));
+
+        instance.set("a", "3");
+        instance.set("b", "${a}${a}");
+        assertEquals("33-3", instance.get("c"));
+        assertEquals("o", instance.get("d"));
+    }
+
+    /**
+     * 派生实例与基础实例的替换结果互不影响。
+     */
+    @Test
+    public void derivedInstances() {
+        ConfigInstance base = ConfigInstance.of(entries(
+            "a", "1", "c", "${a}"));
+        assertEquals("1", base.get("c"));
+
+        Map<String, String> overrides = new HashMap<>();
+        overrides.put("a", "2");
+        ConfigInstance derived = base.derive(overrides);
+
+        assertEquals("2", derived.get("c"));
+        assertEquals("1", base.get("c"));
+
+        base.set("a", "3");
+        assertEquals("3", base.get("c"));
+        assertEquals("2", derived.get("c"));
+    }
+
+    /**
+     * 与写入并发保存的替换结果在新快照中不会被使用，即使没有被清除。
+     */
+    @Test
+    public void ignoresStaleResults() {
+        AtomicReference<Snapshot> snapshot = new AtomicReference<>(
+            new Snapshot(entries("a", "1", "b", "${a}", "c", "[${b}]")));
+        Interpolator interpolator = new Interpolator(snapshot);
+        assertEquals("[1]", interpolator.get("c"));
+
+        snapshot.set(snapshot.get().with("a", "2"));
+        assertEquals("[2]", interpolator.get("c"));
+        assertEquals("2", interpolator.get("b"));
+
+        Snapshot previous = snapshot.getAndSet(snapshot.get().with("a", null));
+        assertEquals("[${a}]", interpolator.get("c"));
+        assertTrue(interpolator.isStable(snapshot.get(), "c"));
+        assertFalse(interpolator.isStable(previous, "c"));
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 检查读取配置项时报告循环引用。
+     *
+     * @param instance 配置信息实例。
+     * @param key      配置项键。
+     * @param cycle    引用链。
+     */
+    private static void assertCycle(ConfigInstance instance, String key,
+                                    String cycle) {
+        try {
+            instance.get(key);
+            fail("Cycle not detected: " + cycle);
+        } catch (ConfigItemException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(key + ":") &&
+                e.getMessage().contains(cycle));
+        }
+    }
+
+    /**
+     * 构造配置项。
+     *
+     * @param keyValues 依次排列的配置项键与值。
+     * @return 配置项。
+     */
+    static Map<String, String> entries(String... keyValues) {
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            entries.put(keyValues[i], keyValues[i + 1]);
+        }
+        return entries;
+    }
+
+}
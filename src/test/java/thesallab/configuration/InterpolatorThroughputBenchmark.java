@@ -0,0 +1,148 @@
+package thesallab.configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并发读写吞吐量基准。
+ * <p>
+ * 多个线程同时读取与批量修改同一个配置信息实例：95%的操作读取配置项，
+ * 其中十分之一读取引用两个配置项的<code>c = ${a}-${b}</code>；
+ * 5%的操作以{@link ConfigInstance#setAll(Map)}一次修改100个配置项以及a与b。
+ * 输出每个线程数下的读取次数、批量修改次数，
+ * 以及读到a与b不一致的c的次数，该次数应始终为0。
+ * 运行方法：
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     thesallab.configuration.InterpolatorThroughputBenchmark [毫秒数]
+ * </pre>
+ *
+ * @author Zhang, Yin
+ */
+public class InterpolatorThroughputBenchmark {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 配置项数量。
+     */
+    private static final int SIZE = 10000;
+
+    /**
+     * 每次批量修改的配置项数量。
+     */
+    private static final int BATCH = 100;
+
+    /**
+     * 测量的线程数。
+     */
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 运行基准。
+     *
+     * @param args 每个线程数的测量毫秒数，可选。
+     * @throws Exception 运行失败。
+     */
+    public static void main(String[] args) throws Exception {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < SIZE; i++) {
+            entries.put("k" + i, "v" + i);
+        }
+        entries.put("a", "0");
+        entries.put("b", "0");
+        entries.put("c", "${a}-${b}");
+        ConfigInstance instance = ConfigInstance.of(entries);
+
+        for (int threads : THREADS) {
+            run(instance, threads, millis / 4);
+        }
+        for (int threads : THREADS) {
+            run(instance, threads, millis);
+        }
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 测量一个线程数下的吞吐量。
+     *
+     * @param instance 配置信息实例。
+     * @param threads  线程数。
+     * @param millis   测量毫秒数。
+     * @throws InterruptedException 等待被中断。
+     */
+    private static void run(ConfigInstance instance, int threads,
+                            long millis) throws InterruptedException {
+        AtomicLong reads = new AtomicLong();
+        AtomicLong writes = new AtomicLong();
+        AtomicLong torn = new AtomicLong();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger version = new AtomicInteger();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long read = 0;
+                long written = 0;
+                long bad = 0;
+                while (!stop.get()) {
+                    if (random.nextInt(100) < 5) {
+                        String v = Integer.toString(version.incrementAndGet());
+                        Map<String, String> changes = new HashMap<>();
+                        for (int i = 0; i < BATCH; i++) {
+                            changes.put("k" + random.nextInt(SIZE), v);
+                        }
+                        changes.put("a", v);
+                        changes.put("b", v);
+                        instance.setAll(changes);
+                        written++;
+                    } else if (random.nextInt(10) == 0) {
+                        String c = instance.get("c");
+                        int dash = c.indexOf('-');
+                        if (!c.substring(0, dash).equals(
+                            c.substring(dash + 1))) {
+                            bad++;
+                        }
+                        read++;
+                    } else {
+                        instance.get("k" + random.nextInt(SIZE));
+                        read++;
+                    }
+                }
+                reads.addAndGet(read);
+                writes.addAndGet(written);
+                torn.addAndGet(bad);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        Thread.sleep(millis);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        System.out.printf("threads=%2d reads/s=%,12d batches/s=%,9d " +
+                "torn=%d%n", threads, reads.get() * 1000 / millis,
+            writes.get() * 1000 / millis, torn.get());
+    }
+
+}
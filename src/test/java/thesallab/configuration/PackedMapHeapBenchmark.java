@@ -0,0 +1,224 @@
+package thesallab.configuration;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * 配置项内存占用基准。
+ * <p>
+ * 生成含有大量配置项的配置文件，分别以commons-configuration、
+ * 字符串HashMap与{@link PackedMap}保存，比较完全GC后保留的堆内存与随机查找耗时，
+ * 并检查{@link ConfigInstance#reload()}之后保留的堆内存没有增加。
+ * 运行方法：
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -Xmx4g -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     thesallab.configuration.PackedMapHeapBenchmark [配置项数量]
+ * </pre>
+ *
+ * @author Zhang, Yin
+ */
+public class PackedMapHeapBenchmark {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 默认配置项数量。
+     */
+    private static final int DEFAULT_SIZE = 1000000;
+
+    /**
+     * 查找使用的配置项键数量。
+     */
+    private static final int LOOKUP_KEYS = 1000;
+
+    /**
+     * 防止查找被优化掉的结果。
+     */
+    private static long sink = 0;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 运行基准。
+     *
+     * @param args 配置项数量，可选。
+     * @throws Exception 运行失败。
+     */
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+        File file = File.createTempFile("config-heap", ".properties");
+        file.deleteOnExit();
+        write(file, size);
+        System.out.printf("%,d keys, %.1f MB on disk%n", size,
+            file.length() / 1e6);
+
+        String[] keys = lookupKeys(size);
+
+        long before = used();
+        PropertiesConfiguration configuration =
+            new PropertiesConfiguration(file);
+        report("commons-configuration", used() - before,
+            lookup(configuration::getString, keys));
+        configuration = null;
+
+        before = used();
+        Map<String, String> map = read(file);
+        report("HashMap<String, String>", used() - before,
+            lookup(map::get, keys));
+        map = null;
+
+        before = used();
+        PackedMap packed = PackedMap.of(read(file));
+        report("PackedMap", used() - before, lookup(packed::get, keys));
+        packed = null;
+
+        before = used();
+        ConfigInstance instance = ConfigInstance.load(file.getPath());
+        report("ConfigInstance", used() - before, lookup(instance::get, keys));
+
+        instance.reload();
+        report("ConfigInstance after reload", used() - before,
+            lookup(instance::get, keys));
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 写入配置文件。30%为布尔值，30%为小整数，30%取自100个路径，10%为唯一值。
+     *
+     * @param file 配置文件。
+     * @param size 配置项数量。
+     * @throws IOException 写入失败。
+     */
+    private static void write(File file, int size) throws IOException {
+        Random random = new Random(3);
+        try (PrintWriter writer = new PrintWriter(file,
+            StandardCharsets.ISO_8859_1.name())) {
+            for (int i = 0; i < size; i++) {
+                double c = random.nextDouble();
+                String value;
+                if (c < 0.3) {
+                    value = Boolean.toString(random.nextBoolean());
+                } else if (c < 0.6) {
+                    value = Integer.toString(random.nextInt(101));
+                } else if (c < 0.9) {
+                    value = "/data/cluster" + random.nextInt(100) +
+                        "/shared/input/";
+                } else {
+                    value = "unique-value-" + i + "-" + random.nextInt();
+                }
+                writer.println(key(i) + " = " + value);
+            }
+        }
+    }
+
+    /**
+     * 读取配置文件中的配置项，不保留commons-configuration的对象。
+     *
+     * @param file 配置文件。
+     * @return 配置项。
+     * @throws Exception 读取失败。
+     */
+    private static Map<String, String> read(File file) throws Exception {
+        PropertiesConfiguration configuration =
+            new PropertiesConfiguration(file);
+        Map<String, String> entries = new HashMap<>();
+        Iterator<?> keys = configuration.getKeys();
+        while (keys.hasNext()) {
+            String key = (String) keys.next();
+            entries.put(key, configuration.getString(key));
+        }
+        return entries;
+    }
+
+    /**
+     * 获得配置项键。
+     *
+     * @param i 配置项编号。
+     * @return 配置项键。
+     */
+    private static String key(int i) {
+        return "service.module" + i / 1000 + ".component" + i % 1000 +
+            ".setting";
+    }
+
+    /**
+     * 随机选取查找使用的配置项键。
+     *
+     * @param size 配置项数量。
+     * @return 配置项键。
+     */
+    private static String[] lookupKeys(int size) {
+        Random random = new Random(1);
+        String[] keys = new String[LOOKUP_KEYS];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(random.nextInt(size));
+        }
+        return keys;
+    }
+
+    /**
+     * 测量随机查找耗时，取多轮中的最小值。
+     *
+     * @param lookup 查找函数。
+     * @param keys   配置项键。
+     * @return 每次查找的纳秒数。
+     */
+    private static long lookup(Function<String, String> lookup,
+                               String[] keys) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 20; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 1000; i++) {
+                for (String key : keys) {
+                    sink += lookup.apply(key).length();
+                }
+            }
+            best = Math.min(best,
+                (System.nanoTime() - start) / (1000L * keys.length));
+        }
+        return best;
+    }
+
+    /**
+     * 输出一行结果。
+     *
+     * @param name     存储方式。
+     * @param retained 保留的堆内存字节数。
+     * @param nanos    每次查找的纳秒数。
+     */
+    private static void report(String name, long retained, long nanos) {
+        System.out.printf("%-28s %8.1f MB %6d ns/get%n", name,
+            retained / 1e6, nanos);
+    }
+
+    /**
+     * 完全GC后获得已使用的堆内存。
+     *
+     * @return 已使用的堆内存字节数。
+     * @throws InterruptedException 等待被中断。
+     */
+    private static long used() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,123 @@
+package thesallab.configuration;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link PackedMap}测试。
+ *
+ * @author Zhang, Yin
+ */
+public class PackedMapTest {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 含有非ASCII字符与增补字符的配置项。
+     */
+    private static final Map<String, String> ENTRIES = new HashMap<>();
+
+    static {
+        ENTRIES.put("path", "/data/input/");
+        ENTRIES.put("", "empty key");
+        ENTRIES.put("empty", "");
+        ENTRIES.put("数据.路径", "/数据/输入/");
+        ENTRIES.put("clé.été", "café");
+        ENTRIES.put("ключ", "значение");
+        ENTRIES.put("music.𝄞", "clef 𝄞");
+        ENTRIES.put("emoji.😀.key", "😀");
+        ENTRIES.put("Aa", "collides");
+        ENTRIES.put("BB", "with Aa");
+    }
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 按多字节与增补字符的键读取配置项值。
+     */
+    @Test
+    public void get() {
+        PackedMap map = PackedMap.of(ENTRIES);
+
+        ENTRIES.forEach((k, v) -> assertEquals(k, v, map.get(k)));
+        assertSame(map.get("数据.路径"), map.get("数据.路径"));
+    }
+
+    /**
+     * 只是前缀相同或字符编码不同的键不会被误认为存在。
+     */
+    @Test
+    public void missingKeys() {
+        PackedMap map = PackedMap.of(ENTRIES);
+
+        assertNull(map.get("数据"));
+        assertNull(map.get("数据.路径.子"));
+        assertNull(map.get("cle.ete"));
+        assertNull(map.get("music.\uD834"));
+        assertNull(map.get("music.𝄟"));
+        assertNull(map.get("emoji.😁.key"));
+        assertNull(map.get("C#"));
+        assertFalse(map.contains("ключи"));
+    }
+
+    /**
+     * 直接比较编码判断配置项值。
+     */
+    @Test
+    public void contains() {
+        PackedMap map = PackedMap.of(ENTRIES);
+
+        ENTRIES.forEach((k, v) -> {
+            assertTrue(k, map.contains(k));
+            assertTrue(k, map.contains(k, v));
+        });
+        assertFalse(map.contains("数据.路径", "/数据/输入"));
+        assertFalse(map.contains("数据.路径", "/数据/输入/x"));
+        assertFalse(map.contains("music.𝄞", "clef \uD834"));
+        assertFalse(map.contains("empty", " "));
+        assertFalse(map.contains("missing", ""));
+    }
+
+    /**
+     * 遍历得到所有配置项。
+     */
+    @Test
+    public void forEach() {
+        PackedMap map = PackedMap.of(ENTRIES);
+
+        Map<String, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(ENTRIES, visited);
+    }
+
+    /**
+     * 大量配置项共享重复的配置项值。
+     */
+    @Test
+    public void manyEntries() {
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            entries.put("键" + i, i % 3 == 0 ? "😀" : "值" + i % 7);
+        }
+        PackedMap map = PackedMap.of(entries);
+
+        entries.forEach((k, v) -> assertEquals(v, map.get(k)));
+        assertNull(map.get("键100000"));
+        assertNull(PackedMap.of(new HashMap<>()).get("a"));
+    }
+
+    // **************** 私有方法
+
+}
@@ -0,0 +1,111 @@
+package thesallab.configuration;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * {@link PersistentMap}测试。
+ *
+ * @author Zhang, Yin
+ */
+public class PersistentMapTest {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 修改返回新映射，原映射不变。
+     */
+    @Test
+    public void putKeepsOriginal() {
+        PersistentMap first = PersistentMap.empty().put("a", "1");
+        PersistentMap second = first.put("a", "2").put("b", "3");
+
+        assertEquals("1", first.get("a"));
+        assertNull(first.get("b"));
+        assertEquals("2", second.get("a"));
+        assertEquals("3", second.get("b"));
+        assertNull(PersistentMap.empty().get("a"));
+    }
+
+    /**
+     * 配置项值按引用比较，内容相同的不同字符串也会替换原值。
+     */
+    @Test
+    public void putComparesValuesByReference() {
+        String value = "value";
+        PersistentMap map = PersistentMap.empty().put("a", value);
+
+        assertSame(map, map.put("a", value));
+
+        String marker = new String("");
+        PersistentMap marked = map.put("a", "").put("a", marker);
+        assertNotSame(map, marked);
+        assertSame(marker, marked.get("a"));
+    }
+
+    /**
+     * 哈希值相同的配置项键互不覆盖，修改其中之一不影响其他配置项与原映射。
+     */
+    @Test
+    public void collidingKeys() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals("Aa".hashCode(), "C#".hashCode());
+
+        PersistentMap map = PersistentMap.empty().put("Aa", "1").put("BB", "2")
+            .put("C#", "3");
+        PersistentMap changed = map.put("BB", "4");
+
+        assertEquals("1", map.get("Aa"));
+        assertEquals("2", map.get("BB"));
+        assertEquals("3", map.get("C#"));
+        assertEquals("1", changed.get("Aa"));
+        assertEquals("4", changed.get("BB"));
+        assertEquals("3", changed.get("C#"));
+        assertNull(changed.get("D\u0002"));
+    }
+
+    /**
+     * 批量设置不修改原映射，遍历得到所有配置项。
+     */
+    @Test
+    public void putAll() {
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            entries.put("key" + i, "value" + i);
+        }
+        entries.put("Aa", "x");
+        entries.put("BB", "y");
+
+        PersistentMap base = PersistentMap.empty().put("key0", "old");
+        PersistentMap map = base.putAll(entries);
+
+        assertEquals("old", base.get("key0"));
+        assertNull(base.get("key1"));
+
+        Map<String, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(entries, visited);
+
+        Map<String, String> more = new HashMap<>();
+        more.put("key1", "changed");
+        PersistentMap next = map.putAll(more);
+        assertEquals("value1", map.get("key1"));
+        assertEquals("changed", next.get("key1"));
+    }
+
+    // **************** 私有方法
+
+}
@@ -0,0 +1,116 @@
+package thesallab.configuration;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link Snapshot}测试。
+ *
+ * @author Zhang, Yin
+ */
+public class SnapshotTest {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 设置、删除与空字符串值可以任意往返。
+     */
+    @Test
+    public void setRemoveAndEmptyRoundTrip() {
+        Snapshot base = new Snapshot(entries("a", "1", "b", ""));
+
+        Snapshot removed = base.with("a", null);
+        assertNull(removed.get("a"));
+        assertFalse(removed.contains("a"));
+
+        Snapshot empty = removed.with("a", "");
+        assertEquals("", empty.get("a"));
+        assertTrue(empty.contains("a"));
+        assertTrue(empty.contains("a", ""));
+
+        Snapshot restored = empty.with("a", "1");
+        assertEquals("1", restored.get("a"));
+
+        Snapshot removedAgain = restored.with("a", null);
+        assertNull(removedAgain.get("a"));
+
+        assertEquals("", base.get("b"));
+        Snapshot noB = base.with("b", null);
+        assertNull(noB.get("b"));
+        assertEquals("", noB.with("b", "").get("b"));
+
+        assertEquals("1", base.get("a"));
+    }
+
+    /**
+     * 批量设置时null删除配置项，空字符串保留配置项。
+     */
+    @Test
+    public void withAll() {
+        Snapshot base = new Snapshot(entries("a", "1", "b", "2"));
+
+        Map<String, String> changes = new HashMap<>();
+        changes.put("a", null);
+        changes.put("b", "");
+        changes.put("c", "3");
+        Snapshot next = base.withAll(changes);
+
+        assertNull(next.get("a"));
+        assertEquals("", next.get("b"));
+        assertEquals("3", next.get("c"));
+
+        Map<String, String> visited = new HashMap<>();
+        next.forEach(visited::put);
+        assertEquals(entries("b", "", "c", "3"), visited);
+
+        assertEquals("1", base.get("a"));
+        assertNull(base.get("c"));
+    }
+
+    /**
+     * 判断配置项值是否相同时考虑修改记录。
+     */
+    @Test
+    public void containsValue() {
+        Snapshot base = new Snapshot(entries("a", "1"));
+
+        assertTrue(base.contains("a", "1"));
+        assertFalse(base.contains("a", "2"));
+        assertFalse(base.contains("b", "1"));
+
+        Snapshot changed = base.with("a", "2");
+        assertTrue(changed.contains("a", "2"));
+        assertFalse(changed.contains("a", "1"));
+        assertFalse(changed.with("a", null).contains("a", ""));
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 构造配置项。
+     *
+     * @param keyValues 依次排列的配置项键与值。
+     * @return 配置项。
+     */
+    private static Map<String, String> entries(String... keyValues) {
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            entries.put(keyValues[i], keyValues[i + 1]);
+        }
+        return entries;
+    }
+
+}
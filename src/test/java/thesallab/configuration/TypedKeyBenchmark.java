@@ -0,0 +1,125 @@
+package thesallab.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 类型化配置项键读取耗时基准。
+ * <p>
+ * 比较{@link ConfigInstance#getInt(String)}等按字符串键读取的方法与生成的访问类使用的
+ * {@link TypedKey#get(ConfigInstance)}，分别测量只读取一个配置信息实例，
+ * 以及轮流读取多个派生实例（多租户）时每次读取的耗时。
+ * 运行方法：
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     thesallab.configuration.TypedKeyBenchmark [租户数量]
+ * </pre>
+ *
+ * @author Zhang, Yin
+ */
+public class TypedKeyBenchmark {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    /**
+     * 默认租户数量。
+     */
+    private static final int DEFAULT_TENANTS = 16;
+
+    /**
+     * 每轮读取次数。
+     */
+    private static final int READS = 1000000;
+
+    /**
+     * 防止读取被优化掉的结果。
+     */
+    private static long sink = 0;
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 运行基准。
+     *
+     * @param args 租户数量，可选。
+     */
+    public static void main(String[] args) {
+        int tenants = args.length > 0 ? Integer.parseInt(args[0]) :
+            DEFAULT_TENANTS;
+
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            entries.put("key" + i, Integer.toString(i));
+        }
+        entries.put("threads", "16");
+        entries.put("workers", "${threads}");
+        entries.put("sizes", "[1, 2, 3]");
+        ConfigInstance base = ConfigInstance.of(entries);
+
+        ConfigInstance[] instances = new ConfigInstance[tenants];
+        for (int i = 0; i < tenants; i++) {
+            Map<String, String> overrides = new HashMap<>();
+            overrides.put("threads", Integer.toString(i + 1));
+            instances[i] = base.derive(overrides);
+        }
+
+        TypedKey<Integer> threads = new TypedKey<>(ValueType.INT, "threads");
+        TypedKey<Integer> workers = new TypedKey<>(ValueType.INT, "workers");
+        TypedKey<int[]> sizes = new TypedKey<>(ValueType.INT_ARRAY, "sizes");
+
+        for (int round = 0; round < 2; round++) {
+            boolean print = round > 0;
+            measure(print, "getInt, one instance",
+                new ConfigInstance[] {base}, p -> p.getInt("threads"));
+            measure(print, "TypedKey int, one instance",
+                new ConfigInstance[] {base}, threads::get);
+            measure(print, "getInt ${}, one instance",
+                new ConfigInstance[] {base}, p -> p.getInt("workers"));
+            measure(print, "TypedKey int ${}, one instance",
+                new ConfigInstance[] {base}, workers::get);
+            measure(print, "getIntArray, one instance",
+                new ConfigInstance[] {base}, p -> p.getIntArray("sizes")[0]);
+            measure(print, "TypedKey int[], one instance",
+                new ConfigInstance[] {base}, p -> sizes.get(p)[0]);
+            measure(print, "getInt, " + tenants + " tenants", instances,
+                p -> p.getInt("threads"));
+            measure(print, "TypedKey int, " + tenants + " tenants", instances,
+                threads::get);
+        }
+    }
+
+    // **************** 私有方法
+
+    /**
+     * 测量轮流读取各个实例时每次读取的耗时，取多轮中的最小值。
+     *
+     * @param print     是否输出结果。
+     * @param name      读取方式。
+     * @param instances 配置信息实例。
+     * @param read      读取函数。
+     */
+    private static void measure(boolean print, String name,
+                                ConfigInstance[] instances,
+                                ToIntFunction<ConfigInstance> read) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < READS; i++) {
+                sink += read.applyAsInt(instances[i % instances.length]);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        if (print) {
+            System.out.printf("%-36s %6.1f ns/read%n", name,
+                (double) best / READS);
+        }
+    }
+
+}
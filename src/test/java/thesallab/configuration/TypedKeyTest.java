@@ -0,0 +1,69 @@
+package thesallab.configuration;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link TypedKey}测试。
+ *
+ * @author Zhang, Yin
+ */
+public class TypedKeyTest {
+
+    // **************** 公开变量
+
+    // **************** 私有变量
+
+    // **************** 继承方法
+
+    // **************** 公开方法
+
+    /**
+     * 轮流读取多个实例时各自得到自己的值，修改后得到新值。
+     */
+    @Test
+    public void perInstance() {
+        ConfigInstance base = ConfigInstance.of(InterpolatorTest.entries(
+            "threads", "1", "workers", "${threads}"));
+        Map<String, String> overrides = new HashMap<>();
+        overrides.put("threads", "2");
+        ConfigInstance tenant = base.derive(overrides);
+
+        TypedKey<Integer> threads = new TypedKey<>(ValueType.INT, "threads");
+        TypedKey<Integer> workers = new TypedKey<>(ValueType.INT, "workers");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, (int) threads.get(base));
+            assertEquals(2, (int) threads.get(tenant));
+            assertEquals(1, (int) workers.get(base));
+            assertEquals(2, (int) workers.get(tenant));
+        }
+
+        tenant.set("threads", "3");
+        assertEquals(3, (int) workers.get(tenant));
+        assertEquals(1, (int) workers.get(base));
+    }
+
+    /**
+     * 缺失的配置项返回默认值，返回的数组是副本。
+     */
+    @Test
+    public void defaultsAndCopies() {
+        ConfigInstance instance = ConfigInstance.of(InterpolatorTest.entries(
+            "sizes", "[1, 2]"));
+
+        assertEquals(5, (int) new TypedKey<>(ValueType.INT, "missing", 5)
+            .get(instance));
+
+        TypedKey<int[]> sizes = new TypedKey<>(ValueType.INT_ARRAY, "sizes");
+        sizes.get(instance)[0] = 9;
+        assertArrayEquals(new int[] {1, 2}, sizes.get(instance));
+    }
+
+    // **************** 私有方法
+
+}